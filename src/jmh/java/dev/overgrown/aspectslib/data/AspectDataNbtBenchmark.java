@@ -0,0 +1,88 @@
+package dev.overgrown.aspectslib.data;
+
+import dev.overgrown.aspectslib.AspectsLib;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.util.Identifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the direct NBT reader/writer of {@link AspectData} with the {@link AspectData#CODEC} path it replaced.
+ * <p>
+ * Usage:
+ * <li>{@code ./gradlew jmh}, results are written to {@code build/results/jmh}</li>
+ * <li>The gc profiler is enabled in the build script, so allocations per operation are reported as well</li>
+ * </p>
+ * Both paths produce and read the same {@code {AspectData: {aspects: {...}}}} layout. Aspects are registered as
+ * ordinals up front, as {@link AspectManager} does on reload, so the direct reader resolves every key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AspectDataNbtBenchmark {
+
+    @Param({"1", "4", "16"})
+    private int aspectCount;
+
+    private AspectData data;
+    private NbtCompound nbt;
+
+    @Setup
+    public void setup() {
+        Object2IntOpenHashMap<Identifier> aspects = new Object2IntOpenHashMap<>();
+        for (int i = 0; i < aspectCount; i++) {
+            Identifier id = AspectsLib.identifier("benchmark_" + i);
+            AspectOrdinals.getOrCreate(id);
+            aspects.put(id, 10 + i);
+        }
+        data = new AspectData(aspects);
+        nbt = data.toNbt();
+    }
+
+    @Benchmark
+    public NbtCompound writeDirect() {
+        return data.toNbt();
+    }
+
+    @Benchmark
+    public NbtCompound writeCodec() {
+        NbtCompound result = new NbtCompound();
+        AspectData.CODEC.encodeStart(NbtOps.INSTANCE, data)
+                .result()
+                .ifPresent(element -> result.put("AspectData", element));
+        return result;
+    }
+
+    @Benchmark
+    public AspectData readDirect() {
+        return AspectData.fromNbt(nbt);
+    }
+
+    @Benchmark
+    public AspectData readCodec() {
+        if (!nbt.contains("AspectData", NbtElement.COMPOUND_TYPE)) {
+            return AspectData.DEFAULT;
+        }
+        return AspectData.CODEC.parse(NbtOps.INSTANCE, nbt.getCompound("AspectData"))
+                .result()
+                .map(AspectData::intern)
+                .orElse(AspectData.DEFAULT);
+    }
+}
@@ -1,26 +1,37 @@
 package dev.overgrown.aspectslib;
 
+import dev.overgrown.aspectslib.aether.AetherDensityCache;
 import dev.overgrown.aspectslib.aether.BiomeAetherDensityManager;
 import dev.overgrown.aspectslib.aether.CorruptionManager;
+import dev.overgrown.aspectslib.aether.DynamicAetherDensityManager;
+import dev.overgrown.aspectslib.aether.StructureAetherIndex;
 import dev.overgrown.aspectslib.aether.StructureAetherModifierManager;
 import dev.overgrown.aspectslib.command.AetherDensityCommand;
 import dev.overgrown.aspectslib.data.AspectManager;
 import dev.overgrown.aspectslib.data.CustomItemTagManager;
 import dev.overgrown.aspectslib.data.EntityAspectManager;
+import dev.overgrown.aspectslib.data.ItemAspectCache;
+import dev.overgrown.aspectslib.data.RecipeAspectInference;
+import dev.overgrown.aspectslib.entity.aura_node.AuraNodeAspectManager;
 import dev.overgrown.aspectslib.entity.aura_node.AuraNodeEntity;
+import dev.overgrown.aspectslib.entity.aura_node.AuraNodeSystem;
 import dev.overgrown.aspectslib.registry.ModEntities;
+import dev.overgrown.aspectslib.registry.ModFeatures;
 import dev.overgrown.aspectslib.registry.ModItems;
 import dev.overgrown.aspectslib.resonance.ResonanceManager;
+import dev.overgrown.aspectslib.networking.AspectPalette;
 import dev.overgrown.aspectslib.networking.SyncAspectIdentifierPacket;
 import net.fabricmc.api.ModInitializer;
-import net.fabricmc.fabric.api.biome.v1.BiomeModifications;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
-import net.minecraft.entity.EntityType;
-import net.minecraft.entity.SpawnGroup;
-import net.minecraft.entity.SpawnRestriction;
 import net.minecraft.entity.mob.MobEntity;
 import net.minecraft.entity.mob.Monster;
 import net.minecraft.registry.RegistryKey;
@@ -29,7 +40,6 @@ import net.minecraft.registry.tag.TagKey;
 import net.minecraft.resource.ResourceType;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
-import net.minecraft.world.Heightmap;
 import net.minecraft.world.biome.Biome;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -72,6 +82,7 @@ public class AspectsLib implements ModInitializer {
 	public void onInitialize() {
         ModItems.initialize();
 		ModEntities.register();
+		ModFeatures.register();
 
 		// Register commands
 		CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> {
@@ -89,6 +100,16 @@ public class AspectsLib implements ModInitializer {
 			}
 		});
 
+		// Send the full aspect payload to clients that do not have it cached
+		ServerPlayNetworking.registerGlobalReceiver(SyncAspectIdentifierPacket.REQUEST_ID, (server, player, handler, buf, responseSender) -> {
+			long cachedHash = buf.readLong();
+			server.execute(() -> SyncAspectIdentifierPacket.onPayloadRequest(player, cachedHash));
+		});
+
+		// Stop writing palette ordinals for players that left
+		ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> AspectPalette.onDisconnect(handler.player));
+		ServerLifecycleEvents.SERVER_STOPPED.register(server -> AspectPalette.reset());
+
 		// Initialize and register data managers
 		AspectManager aspectManager = new AspectManager();
 		ResourceManagerHelper.get(ResourceType.SERVER_DATA).registerReloadListener(aspectManager);
@@ -101,25 +122,77 @@ public class AspectsLib implements ModInitializer {
 		ResourceManagerHelper.get(ResourceType.SERVER_DATA)
 				.registerReloadListener(new EntityAspectManager());
 
+		// Register aura node aspect tables
+		ResourceManagerHelper.get(ResourceType.SERVER_DATA)
+				.registerReloadListener(new AuraNodeAspectManager());
+
 		// Register Aether density loaders
 		ResourceManagerHelper.get(ResourceType.SERVER_DATA)
 				.registerReloadListener(new BiomeAetherDensityManager());
 		ResourceManagerHelper.get(ResourceType.SERVER_DATA)
 				.registerReloadListener(new StructureAetherModifierManager());
 
+		// Index aether structure modifiers of loaded chunks, drop cached aether data of unloaded chunks and worlds
+		ServerChunkEvents.CHUNK_LOAD.register((world, chunk) -> {
+			StructureAetherIndex.onChunkLoad(world, chunk.getPos());
+			DynamicAetherDensityManager.onChunkLoad(world, chunk);
+			CorruptionManager.onChunkLoad(world, chunk.getPos());
+		});
+		ServerChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> {
+			StructureAetherIndex.onChunkUnload(world, chunk.getPos());
+			AetherDensityCache.onChunkUnload(world, chunk.getPos());
+			DynamicAetherDensityManager.onChunkUnload(world, chunk);
+			CorruptionManager.onChunkUnload(world, chunk.getPos());
+		});
+		ServerWorldEvents.UNLOAD.register((server, world) -> {
+			StructureAetherIndex.onWorldUnload(world);
+			AetherDensityCache.onWorldUnload(world);
+			DynamicAetherDensityManager.onWorldUnload(world);
+			CorruptionManager.onWorldUnload(world);
+			AuraNodeSystem.onWorldUnload(world);
+		});
+		ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+			StructureAetherIndex.invalidateAll();
+			AetherDensityCache.invalidateAll();
+			DynamicAetherDensityManager.reset();
+			CorruptionManager.reset();
+			AuraNodeSystem.reset();
+		});
+
+		// Aura nodes are simulated by their world's node system while loaded
+		ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+			if (entity instanceof AuraNodeEntity node) {
+				AuraNodeSystem.onNodeLoad(world, node);
+			}
+		});
+		ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+			if (entity instanceof AuraNodeEntity node) {
+				AuraNodeSystem.onNodeUnload(world, node);
+			}
+		});
+
+		// Resolve item aspects per item once tags are bound (server start, /reload and client tag sync)
+		CommonLifecycleEvents.TAGS_LOADED.register((registries, client) -> ItemAspectCache.rebuild());
+
+		// Infer aspects of crafted items off-thread once recipes and item aspects are loaded
+		ServerLifecycleEvents.SERVER_STARTED.register(server ->
+				RecipeAspectInference.start(server.getRecipeManager(), server.getRegistryManager()));
+		ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resourceManager, success) -> {
+			if (success) {
+				RecipeAspectInference.start(server.getRecipeManager(), server.getRegistryManager());
+			}
+		});
+		ServerLifecycleEvents.SERVER_STOPPED.register(server -> RecipeAspectInference.reset());
+
         ServerTickEvents.END_SERVER_TICK.register(server -> {
             for (ServerWorld world : server.getWorlds()) {
                 CorruptionManager.tick(world);
+                DynamicAetherDensityManager.tick(world);
+                AuraNodeSystem.tick(world);
             }
         });
 
 
-		BiomeModifications.addSpawn(biome -> biome.getBiomeRegistryEntry().isIn(SPAWNS), SpawnGroup.MONSTER,
-				ModEntities.AURA_NODE, 1000, 1, 1);
-		SpawnRestriction.RESTRICTIONS.put(ModEntities.AURA_NODE,new SpawnRestriction.Entry(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES,//does this need a custom enum?
-                SpawnRestriction.Location.NO_RESTRICTIONS, (type, world, spawnReason, pos, random) -> AuraNodeEntity.isValidNaturalSpawn(
-                                (EntityType<? extends AuraNodeEntity>)(Object) type, world, spawnReason, pos, random)));
-
 		LOGGER.info("AspectsLib initialized!");
 	}
 }
\ No newline at end of file
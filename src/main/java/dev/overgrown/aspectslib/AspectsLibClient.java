@@ -1,17 +1,27 @@
 package dev.overgrown.aspectslib;
 
+import dev.overgrown.aspectslib.client.AspectSyncCache;
 import dev.overgrown.aspectslib.client.AspectsTooltipConfig;
 import dev.overgrown.aspectslib.client.tooltip.AspectTooltipComponent;
 import dev.overgrown.aspectslib.client.tooltip.AspectTooltipData;
 import dev.overgrown.aspectslib.data.*;
+import dev.overgrown.aspectslib.networking.AspectPalette;
+import dev.overgrown.aspectslib.networking.AuraNodeSyncPacket;
 import dev.overgrown.aspectslib.networking.SyncAspectIdentifierPacket;
 import dev.overgrown.aspectslib.registry.ModEntities;
+import dev.overgrown.aspectslib.entity.aura_node.AuraNodeEntity;
 import dev.overgrown.aspectslib.entity.aura_node.render.AuraNodeRenderer;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.fabricmc.fabric.api.client.rendering.v1.EntityRendererRegistry;
 import net.fabricmc.fabric.api.client.rendering.v1.TooltipComponentCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
+import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.network.PacketByteBuf;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.Util;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -34,6 +44,8 @@ import java.util.Map;
  * Important Connections:
  * <li>{@link AspectTooltipComponent}: Renders aspect data in tooltips</li>
  * <li>{@link SyncAspectIdentifierPacket}: Receives aspect data from server</li>
+ * <li>{@link AuraNodeSyncPacket}: Receives aura node aspects from server</li>
+ * <li>{@link AspectSyncCache}: Caches aspect payloads between sessions</li>
  * <li>{@link ModRegistries}: Stores client-side aspect registry</li>
  */
 
@@ -68,6 +80,11 @@ public class AspectsLibClient implements ClientModInitializer {
                     AspectsLib.LOGGER.warn("Received legacy packet format - only name mapping synced");
                 }
 
+                // Aspect ordinal palette, only sent by newer servers
+                if (buf.readableBytes() > 0) {
+                    AspectPalette.read(buf);
+                }
+
                 final Map<String, Identifier> finalNameMap = nameMap;
                 final Map<Identifier, Aspect> finalAspectMap = aspectMap;
 
@@ -79,6 +96,7 @@ public class AspectsLibClient implements ClientModInitializer {
                     if (!finalAspectMap.isEmpty()) {
                         ModRegistries.ASPECTS.clear();
                         ModRegistries.ASPECTS.putAll(finalAspectMap);
+                        AspectComposition.compile(finalAspectMap);
                     }
                     
                     AspectsLib.LOGGER.info("Synced {} aspects from server (name mappings: {})", 
@@ -89,6 +107,92 @@ public class AspectsLibClient implements ClientModInitializer {
             }
         });
 
+        // Answer the server's payload hash with the hash of our cached copy, or 0 to request the payload. The cache
+        // is read and decoded on the IO worker, not on the network thread.
+        ClientPlayNetworking.registerGlobalReceiver(SyncAspectIdentifierPacket.HASH_ID, (client, handler, buf, responseSender) -> {
+            long hash = buf.readLong();
+            Util.getIoWorkerExecutor().execute(() -> {
+                long cachedHash = 0;
+                byte[] raw = AspectSyncCache.load(hash);
+                if (raw != null) {
+                    try {
+                        applyAspects(client, SyncAspectIdentifierPacket.readPayload(raw), "cache");
+                        cachedHash = hash;
+                    } catch (Exception e) {
+                        AspectsLib.LOGGER.warn("Failed to read cached aspect payload: {}", e.getMessage());
+                    }
+                }
+
+                PacketByteBuf response = PacketByteBufs.create();
+                response.writeLong(cachedHash);
+                responseSender.sendPacket(SyncAspectIdentifierPacket.REQUEST_ID, response);
+            });
+        });
+
+        // Full aspect payload, sent when our cached copy was missing or outdated. Only applied and cached if it
+        // matches the announced hash.
+        ClientPlayNetworking.registerGlobalReceiver(SyncAspectIdentifierPacket.FULL_ID, (client, handler, buf, responseSender) -> {
+            try {
+                long hash = buf.readLong();
+                int length = buf.readVarInt();
+                byte[] compressed = buf.readByteArray();
+                byte[] raw = SyncAspectIdentifierPacket.decompress(compressed, length);
+                if (!SyncAspectIdentifierPacket.matchesHash(raw, hash)) {
+                    AspectsLib.LOGGER.warn("Discarding aspect payload that does not match its hash {}", Long.toHexString(hash));
+                    return;
+                }
+
+                applyAspects(client, SyncAspectIdentifierPacket.readPayload(raw), "server");
+                AspectSyncCache.store(hash, length, compressed);
+            } catch (Exception e) {
+                AspectsLib.LOGGER.error("Failed to read aspect payload: {}", e.getMessage());
+            }
+        });
+
+        // Aura node aspect updates, applied to the node if the client knows it
+        ClientPlayNetworking.registerGlobalReceiver(AuraNodeSyncPacket.ID, (client, handler, buf, responseSender) -> {
+            AuraNodeSyncPacket.Update update = AuraNodeSyncPacket.read(buf);
+            client.execute(() -> {
+                if (client.world != null && client.world.getEntityById(update.entityId()) instanceof AuraNodeEntity node) {
+                    node.applyAspectSync(update);
+                }
+            });
+        });
+
+        // Remote servers do not share their inferred item aspects, infer them from the synced recipes instead
+        CommonLifecycleEvents.TAGS_LOADED.register((registries, client) -> {
+            MinecraftClient minecraft = MinecraftClient.getInstance();
+            if (client && !minecraft.isIntegratedServerRunning() && minecraft.getNetworkHandler() != null) {
+                RecipeAspectInference.start(minecraft.getNetworkHandler().getRecipeManager(), registries);
+            }
+        });
+
+        // Forget the server's aspect palette and inferred item aspects when leaving it
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> {
+            AspectPalette.reset();
+            if (!client.isIntegratedServerRunning()) {
+                RecipeAspectInference.reset();
+            }
+        });
+
         AspectsLib.LOGGER.info("AspectsLib Client initialized!");
     }
+
+    /**
+     * Replaces the client-side aspects and name mapping on the client thread.
+     */
+    private static void applyAspects(MinecraftClient client, Map<Identifier, Aspect> aspectMap, String source) {
+        Map<String, Identifier> nameMap = new HashMap<>();
+        aspectMap.forEach((id, aspect) -> nameMap.put(aspect.name(), id));
+
+        client.execute(() -> {
+            AspectManager.NAME_TO_ID.clear();
+            AspectManager.NAME_TO_ID.putAll(nameMap);
+            ModRegistries.ASPECTS.clear();
+            ModRegistries.ASPECTS.putAll(aspectMap);
+            AspectComposition.compile(aspectMap);
+
+            AspectsLib.LOGGER.info("Synced {} aspects from {}", aspectMap.size(), source);
+        });
+    }
 }
\ No newline at end of file
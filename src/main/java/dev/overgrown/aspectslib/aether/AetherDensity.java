@@ -11,15 +11,28 @@ import java.util.Map;
 public class AetherDensity {
     public static final AetherDensity EMPTY = new AetherDensity(Collections.emptyMap());
     private final Map<Identifier, Double> densities;
+    private final double total;
 
     public AetherDensity(Map<Identifier, Double> densities) {
         this.densities = Map.copyOf(densities);
+        double sum = 0;
+        for (double density : this.densities.values()) {
+            sum += density;
+        }
+        this.total = sum;
     }
 
     public double getDensity(Identifier aspect) {
         return densities.getOrDefault(aspect, 0.0);
     }
 
+    /**
+     * Gets the sum of all aspect densities, computed once.
+     */
+    public double getTotal() {
+        return total;
+    }
+
     public Map<Identifier, Double> getDensities() {
         return Collections.unmodifiableMap(densities);
     }
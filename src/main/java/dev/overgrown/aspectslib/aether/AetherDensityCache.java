@@ -0,0 +1,197 @@
+package dev.overgrown.aspectslib.aether;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.World;
+import net.minecraft.world.biome.Biome;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-world cache of resolved aether densities, keyed by chunk section.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ * <li>Collects the structure modifiers overlapping a chunk section once, from {@link StructureAetherIndex}</li>
+ * <li>Stores the resolved density for every biome and structure combination seen in the section</li>
+ * <li>Evicts the least recently used sections, and the sections of unloaded chunks</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Accessed by {@link AetherDensityManager#getDensity} for server worlds</li>
+ * <li>Cleared on datapack reload by {@link BiomeAetherDensityManager} and {@link StructureAetherModifierManager}</li>
+ * </p>
+ * The biome is still sampled per query, as vanilla blends biome borders at block granularity inside a section.
+ * Cached densities remember the version of the chunk's {@link AetherField} and are recomputed once it changes.
+ */
+public class AetherDensityCache {
+
+    private static final int MAX_SECTIONS = 4096;
+
+    /**
+     * Distinct biome and structure combinations cached per section, further combinations are computed per query.
+     */
+    private static final int MAX_VARIANTS = 16;
+
+    private static final Map<RegistryKey<World>, AetherDensityCache> CACHES = new ConcurrentHashMap<>();
+
+    private final Long2ObjectLinkedOpenHashMap<Section> sections = new Long2ObjectLinkedOpenHashMap<>();
+
+    /**
+     * Gets the cache of a world, creating it if needed.
+     */
+    public static AetherDensityCache get(ServerWorld world) {
+        return CACHES.computeIfAbsent(world.getRegistryKey(), key -> new AetherDensityCache());
+    }
+
+    /**
+     * Drops the cached sections of an unloaded chunk.
+     */
+    public static void onChunkUnload(ServerWorld world, ChunkPos pos) {
+        AetherDensityCache cache = CACHES.get(world.getRegistryKey());
+        if (cache != null) {
+            cache.removeChunk(world, pos);
+        }
+    }
+
+    /**
+     * Drops the cache of an unloaded world.
+     */
+    public static void onWorldUnload(ServerWorld world) {
+        CACHES.remove(world.getRegistryKey());
+    }
+
+    /**
+     * Drops every cached density, e.g. after the density or modifier datapacks were reloaded.
+     */
+    public static void invalidateAll() {
+        CACHES.clear();
+    }
+
+    /**
+     * Gets the aether density at a position, resolving and caching it on a miss.
+     */
+    public synchronized AetherDensity getDensity(ServerWorld world, BlockPos pos) {
+        long key = ChunkSectionPos.toLong(pos);
+        Section section = sections.getAndMoveToLast(key);
+        if (section == null) {
+            section = createSection(world, pos);
+            sections.putAndMoveToLast(key, section);
+            if (sections.size() > MAX_SECTIONS) {
+                sections.removeFirst();
+            }
+        }
+
+        RegistryEntry<Biome> biome = world.getBiome(pos);
+        long mask = 0;
+        for (int i = 0; i < section.boxes.length; i++) {
+            if (section.boxes[i].contains(pos)) {
+                mask |= 1L << i;
+            }
+        }
+        return section.getDensity(world, biome, mask);
+    }
+
+    private synchronized void removeChunk(ServerWorld world, ChunkPos pos) {
+        if (sections.isEmpty()) {
+            return;
+        }
+        for (int y = world.getBottomSectionCoord(); y < world.getTopSectionCoord(); y++) {
+            sections.remove(ChunkSectionPos.asLong(pos.x, y, pos.z));
+        }
+    }
+
+    private static Section createSection(ServerWorld world, BlockPos pos) {
+        ChunkSectionPos sectionPos = ChunkSectionPos.from(pos);
+        BlockBox sectionBox = new BlockBox(sectionPos.getMinX(), sectionPos.getMinY(), sectionPos.getMinZ(),
+                sectionPos.getMaxX(), sectionPos.getMaxY(), sectionPos.getMaxZ());
+
+        List<BlockBox> boxes = new ArrayList<>();
+        List<AetherModifier> modifiers = new ArrayList<>();
+        for (StructureAetherIndex.Entry entry : StructureAetherIndex.get(world).getIntersecting(world, sectionPos.toChunkPos(), sectionBox)) {
+            if (boxes.size() < Long.SIZE) {
+                boxes.add(entry.box());
+                modifiers.add(entry.modifier());
+            }
+        }
+
+        AetherField field = DynamicAetherDensityManager.getField(world.getWorldChunk(pos));
+        return new Section(boxes.toArray(new BlockBox[0]), modifiers.toArray(new AetherModifier[0]), field);
+    }
+
+    /**
+     * Cached densities of one chunk section. Variants are few per section, so they are scanned linearly.
+     */
+    private static final class Section {
+        private final BlockBox[] boxes;
+        private final AetherModifier[] modifiers;
+        private final AetherField field;
+
+        @SuppressWarnings("unchecked")
+        private RegistryEntry<Biome>[] biomes = new RegistryEntry[2];
+        private long[] masks = new long[2];
+        private int[] versions = new int[2];
+        private AetherDensity[] densities = new AetherDensity[2];
+        private int size = 0;
+
+        private Section(BlockBox[] boxes, AetherModifier[] modifiers, AetherField field) {
+            this.boxes = boxes;
+            this.modifiers = modifiers;
+            this.field = field;
+        }
+
+        private AetherDensity getDensity(ServerWorld world, RegistryEntry<Biome> biome, long mask) {
+            Identifier biomeId = AetherDensityManager.getBiomeId(world, biome);
+            int version = field.getVersion();
+
+            for (int i = 0; i < size; i++) {
+                if (biomes[i] == biome && masks[i] == mask) {
+                    if (versions[i] != version) {
+                        versions[i] = version;
+                        densities[i] = compute(biomeId, mask);
+                    }
+                    return densities[i];
+                }
+            }
+
+            AetherDensity density = compute(biomeId, mask);
+            if (size < MAX_VARIANTS) {
+                if (size == biomes.length) {
+                    int capacity = Math.min(size * 2, MAX_VARIANTS);
+                    biomes = Arrays.copyOf(biomes, capacity);
+                    masks = Arrays.copyOf(masks, capacity);
+                    versions = Arrays.copyOf(versions, capacity);
+                    densities = Arrays.copyOf(densities, capacity);
+                }
+                biomes[size] = biome;
+                masks[size] = mask;
+                versions[size] = version;
+                densities[size] = density;
+                size++;
+            }
+            return density;
+        }
+
+        private AetherDensity compute(Identifier biomeId, long mask) {
+            List<AetherModifier> applied = new ArrayList<>(Long.bitCount(mask));
+            for (int i = 0; i < modifiers.length; i++) {
+                if ((mask & (1L << i)) != 0) {
+                    applied.add(modifiers[i]);
+                }
+            }
+            return AetherDensityManager.computeDensity(biomeId, applied, field);
+        }
+    }
+}
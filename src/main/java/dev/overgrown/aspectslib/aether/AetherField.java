@@ -0,0 +1,281 @@
+package dev.overgrown.aspectslib.aether;
+
+import dev.overgrown.aspectslib.AspectsLib;
+import dev.overgrown.aspectslib.data.AspectOrdinals;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtString;
+import net.minecraft.util.Identifier;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dynamic aether modifications of one chunk.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ * <li>Stores per-aspect offsets to the chunk's aether density in parallel primitive arrays</li>
+ * <li>Provides the decay and diffusion steps run by {@link DynamicAetherDensityManager}</li>
+ * <li>Reads and writes itself as part of the chunk's saved data</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Attached to every chunk through {@link dev.overgrown.aspectslib.api.IAetherFieldHolder}</li>
+ * <li>Sampled by {@link AetherDensityManager} when resolving the density at a position</li>
+ * </p>
+ * Aspects are keyed by their {@link AspectOrdinals} ordinal. A chunk rarely holds more than a few aspects, so
+ * entries are unsorted and scanned linearly. The version is bumped on every change, so cached densities of the
+ * chunk are recomputed.
+ */
+public class AetherField {
+
+    /**
+     * Offsets closer to zero than this are dropped.
+     */
+    public static final double EPSILON = 1.0E-3;
+
+    private short[] ordinals = new short[0];
+    private double[] values = new double[0];
+    private int size = 0;
+    private int version = 0;
+
+    /**
+     * Running sum of all offsets.
+     */
+    private double total = 0;
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getOrdinal(int index) {
+        return ordinals[index];
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the sum of all offsets, kept up to date on every change.
+     */
+    public double getTotal() {
+        return total;
+    }
+
+    public double get(Identifier aspect) {
+        int index = indexOf(AspectOrdinals.get(aspect));
+        return index >= 0 ? values[index] : 0.0;
+    }
+
+    /**
+     * Adds an amount to an aspect's offset. Aspects that are not loaded are ignored.
+     */
+    public void add(Identifier aspect, double amount) {
+        int ordinal = AspectOrdinals.get(aspect);
+        if (ordinal >= 0) {
+            addByOrdinal(ordinal, amount);
+        }
+    }
+
+    public void addByOrdinal(int ordinal, double amount) {
+        if (amount == 0) {
+            return;
+        }
+        int index = indexOf(ordinal);
+        if (index < 0) {
+            if (size == ordinals.length) {
+                int capacity = Math.max(4, size * 2);
+                ordinals = Arrays.copyOf(ordinals, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            index = size++;
+            ordinals[index] = (short) ordinal;
+            values[index] = 0;
+        }
+        values[index] += amount;
+        total += amount;
+        if (Math.abs(values[index]) < EPSILON) {
+            total -= values[index];
+            removeAt(index);
+        }
+        version++;
+    }
+
+    /**
+     * Subtracts an amount from every aspect present in the field.
+     */
+    public void drainAll(double amount) {
+        for (int i = size - 1; i >= 0; i--) {
+            values[i] -= amount;
+            if (Math.abs(values[i]) < EPSILON) {
+                removeAt(i);
+            }
+        }
+        recomputeTotal();
+        version++;
+    }
+
+    /**
+     * Moves the given fraction of every other aspect's offset to an aspect. The sum of the field is preserved.
+     *
+     * @return Whether anything changed.
+     */
+    public boolean convertInto(int targetOrdinal, double fraction) {
+        double moved = 0;
+        boolean changed = false;
+        for (int i = size - 1; i >= 0; i--) {
+            if (ordinals[i] == targetOrdinal) {
+                continue;
+            }
+            double amount = values[i] * fraction;
+            values[i] -= amount;
+            moved += amount;
+            changed = true;
+            if (Math.abs(values[i]) < EPSILON) {
+                removeAt(i);
+            }
+        }
+        if (!changed) {
+            return false;
+        }
+        recomputeTotal();
+        version++;
+        addByOrdinal(targetOrdinal, moved);
+        return true;
+    }
+
+    /**
+     * Moves every offset towards zero by the given fraction.
+     *
+     * @return Whether anything changed.
+     */
+    public boolean decay(double fraction) {
+        if (size == 0) {
+            return false;
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            values[i] -= values[i] * fraction;
+            if (Math.abs(values[i]) < EPSILON) {
+                removeAt(i);
+            }
+        }
+        recomputeTotal();
+        version++;
+        return true;
+    }
+
+    /**
+     * Exchanges offsets with a neighbouring field, moving the given fraction of every difference from the higher
+     * to the lower side. The sum of both fields is preserved.
+     *
+     * @return Whether anything changed.
+     */
+    public boolean diffuseWith(AetherField neighbour, double fraction) {
+        boolean changed = false;
+        // Aspects present here, and possibly in the neighbour
+        for (int i = size - 1; i >= 0; i--) {
+            int ordinal = ordinals[i];
+            double flow = (values[i] - neighbour.getByOrdinal(ordinal)) * fraction;
+            if (Math.abs(flow) >= EPSILON) {
+                neighbour.addByOrdinal(ordinal, flow);
+                addByOrdinal(ordinal, -flow);
+                changed = true;
+            }
+        }
+        // Aspects only present in the neighbour
+        for (int i = neighbour.size - 1; i >= 0; i--) {
+            int ordinal = neighbour.ordinals[i];
+            if (indexOf(ordinal) < 0) {
+                double flow = neighbour.values[i] * fraction;
+                if (Math.abs(flow) >= EPSILON) {
+                    neighbour.addByOrdinal(ordinal, -flow);
+                    addByOrdinal(ordinal, flow);
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Copies the field into an identifier-keyed map.
+     */
+    public Map<Identifier, Double> toMap() {
+        Map<Identifier, Double> map = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            map.put(AspectOrdinals.byOrdinal(ordinals[i]), values[i]);
+        }
+        return map;
+    }
+
+    private double getByOrdinal(int ordinal) {
+        int index = indexOf(ordinal);
+        return index >= 0 ? values[index] : 0.0;
+    }
+
+    private int indexOf(int ordinal) {
+        for (int i = 0; i < size; i++) {
+            if (ordinals[i] == ordinal) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void recomputeTotal() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        total = sum;
+    }
+
+    private void removeAt(int index) {
+        size--;
+        ordinals[index] = ordinals[size];
+        values[index] = values[size];
+    }
+
+    public NbtCompound toNbt() {
+        NbtList aspects = new NbtList();
+        long[] bits = new long[size];
+        for (int i = 0; i < size; i++) {
+            aspects.add(NbtString.of(AspectOrdinals.nameOf(ordinals[i])));
+            bits[i] = Double.doubleToRawLongBits(values[i]);
+        }
+        NbtCompound nbt = new NbtCompound();
+        nbt.put("Aspects", aspects);
+        nbt.putLongArray("Values", bits);
+        return nbt;
+    }
+
+    public static AetherField fromNbt(NbtCompound nbt) {
+        AetherField field = new AetherField();
+        NbtList aspects = nbt.getList("Aspects", NbtElement.STRING_TYPE);
+        long[] bits = nbt.getLongArray("Values");
+        if (aspects.size() != bits.length) {
+            AspectsLib.LOGGER.warn("Skipping invalid aether field with {} aspects and {} values", aspects.size(), bits.length);
+            return field;
+        }
+        for (int i = 0; i < bits.length; i++) {
+            int ordinal = AspectOrdinals.get(aspects.getString(i));
+            if (ordinal >= 0) {
+                field.addByOrdinal(ordinal, Double.longBitsToDouble(bits[i]));
+            }
+        }
+        return field;
+    }
+}
@@ -17,6 +17,15 @@ public class BiomeAetherDensityManager extends JsonDataLoader implements Identif
     private static final Gson GSON = new Gson();
     public static final Map<Identifier, AetherDensity> DENSITY_MAP = new HashMap<>();
 
+    /**
+     * Bumped on every reload, so values derived from the base densities know when to recompute.
+     */
+    private static int version = 0;
+
+    public static int getVersion() {
+        return version;
+    }
+
     public BiomeAetherDensityManager() {
         super(GSON, "aether_densities/biome");
     }
@@ -74,6 +83,8 @@ public class BiomeAetherDensityManager extends JsonDataLoader implements Identif
         });
         
         AspectsLib.LOGGER.info("Completed loading {} biome aether densities", DENSITY_MAP.size());
+        version++;
+        AetherDensityCache.invalidateAll();
         
         DENSITY_MAP.forEach((biomeId, density) -> {
             AspectsLib.LOGGER.debug("Biome {} has densities: {}", biomeId, density.getDensities());
@@ -1,94 +1,308 @@
 package dev.overgrown.aspectslib.aether;
 
 import dev.overgrown.aspectslib.AspectsLib;
+import dev.overgrown.aspectslib.api.VitiumDominanceCallback;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.registry.RegistryKey;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.block.SculkSpreadable;
 import net.minecraft.particle.ParticleTypes;
 import net.minecraft.sound.SoundEvents;
 import net.minecraft.sound.SoundCategory;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Spreads vitium corruption from registered corruption sources.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ * <li>Converts other aspects to vitium around sources where vitium is dominant</li>
+ * <li>Replaces blocks around such sources with sculk, batched per chunk section</li>
+ * <li>Limits the work done per tick to a time and an operation budget</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Ticked per world from {@link AspectsLib}</li>
+ * <li>The budget can be changed with {@link #setTickBudgetMicros}, {@link #setMaxSourcesPerTick} and
+ * {@link #setMaxConversionsPerTick}</li>
+ * </p>
+ * Sources are stored per world in {@link CorruptionSources}. They are processed in rounds. A round first scans the
+ * loaded chunks that hold sources and queues their sources by distance to the nearest player, then works through
+ * the queue, nearest first. Scanning and processing share the per-tick budget, so both are spread over as many ticks
+ * as needed; every scanned or processed source counts as one operation. Work left in the round is reported by
+ * {@link #getBacklog}; a round never starts twice in one tick. Sources that keep spreading stay alive, all others
+ * expire.
+ * <br>
+ * Sculk conversions are collected per chunk section while sources are processed and applied at the end of the
+ * tick, one section at a time, with one particle and one sound packet per section. At most
+ * {@link #setMaxConversionsPerTick} blocks are converted per tick; the rest wait for the next tick, and new
+ * conversions are dropped while too many are waiting. Blocks are set through the world
+ * without neighbour updates, which are then sent once per distinct neighbour of the converted blocks.
+ * <br>
+ * Vitium dominance is not recomputed per tick. Whenever the aether field of a chunk changes, the sources in it
+ * compare the running totals of their biome's base density and the field, and fire {@link VitiumDominanceCallback}
+ * when dominance flips.
+ */
 public class CorruptionManager {
-    private static final Map<Identifier, List<CorruptionSource>> CORRUPTION_SOURCES = new ConcurrentHashMap<>();
     private static final Identifier VITIUM_ASPECT = AspectsLib.identifier("vitium");
 
-    public static void addCorruptionSource(Identifier biomeId, BlockPos pos, int strength) {
-        CORRUPTION_SOURCES.computeIfAbsent(biomeId, k -> new ArrayList<>())
-                .add(new CorruptionSource(pos, strength));
+    private static final Map<RegistryKey<World>, Schedule> SCHEDULES = new ConcurrentHashMap<>();
+
+    /**
+     * Conversions waiting per world, in multiples of the per-tick limit, before new ones are dropped.
+     */
+    private static final int MAX_PENDING_CONVERSION_TICKS = 8;
+
+    private static volatile long tickBudgetNanos = 500_000L;
+    private static volatile int maxSourcesPerTick = 256;
+    private static volatile int maxConversionsPerTick = 32;
+
+    /**
+     * Adds a corruption source, merging it into an existing source close by.
+     */
+    public static void addCorruptionSource(ServerWorld world, BlockPos pos, int strength) {
+        if (!world.getServer().isOnThread()) {
+            BlockPos immutablePos = pos.toImmutable();
+            world.getServer().execute(() -> addCorruptionSource(world, immutablePos, strength));
+            return;
+        }
+        Identifier biomeId = AetherDensityManager.getBiomeId(world, world.getBiome(pos));
+        CorruptionSources.CorruptionSource source = CorruptionSources.get(world).add(world, pos, strength, biomeId);
+        if (updateDominance(world, source, DynamicAetherDensityManager.getField(world.getWorldChunk(pos)))) {
+            fireDominanceChanged(world, source);
+        }
     }
 
-    public static void tick(ServerWorld world) {
-        for (Map.Entry<Identifier, List<CorruptionSource>> entry : CORRUPTION_SOURCES.entrySet()) {
-            Identifier biomeId = entry.getKey();
-            List<CorruptionSource> sources = entry.getValue();
+    /**
+     * Re-evaluates vitium dominance for the sources in a chunk whose aether field changed.
+     */
+    public static void onFieldChanged(ServerWorld world, ChunkPos pos, AetherField field) {
+        // Fired after the loop, listeners may add or remove sources in this chunk
+        List<CorruptionSources.CorruptionSource> changed = null;
+        for (CorruptionSources.CorruptionSource source : CorruptionSources.get(world).getSources(pos)) {
+            if (updateDominance(world, source, field)) {
+                if (changed == null) {
+                    changed = new ArrayList<>(2);
+                }
+                changed.add(source);
+            }
+        }
+        if (changed != null) {
+            for (CorruptionSources.CorruptionSource source : changed) {
+                fireDominanceChanged(world, source);
+            }
+        }
+    }
 
-            // Get base biome density
-            AetherDensity baseDensity = BiomeAetherDensityManager.DENSITY_MAP.getOrDefault(biomeId, AetherDensity.EMPTY);
+    /**
+     * Recomputes whether vitium dominates at a source.
+     *
+     * @return Whether the change has to be reported through {@link VitiumDominanceCallback}.
+     */
+    private static boolean updateDominance(ServerWorld world, CorruptionSources.CorruptionSource source, AetherField field) {
+        Identifier biomeId = source.getBiomeId(world);
+        AetherDensity baseDensity = biomeId != null ?
+                BiomeAetherDensityManager.DENSITY_MAP.getOrDefault(biomeId, AetherDensity.EMPTY) :
+                AetherDensity.EMPTY;
 
-            // Get current modifications
-            Map<Identifier, Double> modifications = DynamicAetherDensityManager.getModifications(biomeId);
-            if (modifications == null) {
-                modifications = new HashMap<>();
+        // Total vitium and total of all other aspects, base + modifications
+        double totalVitium = baseDensity.getDensity(VITIUM_ASPECT) + field.get(VITIUM_ASPECT);
+        double totalOtherAspects = baseDensity.getTotal() + field.getTotal() - totalVitium;
+
+        int previous = source.dominance;
+        source.dominance = totalVitium > totalOtherAspects ? 1 : 0;
+        source.baseVersion = BiomeAetherDensityManager.getVersion();
+
+        // A source seen for the first time only reports corruption onset
+        return previous != source.dominance && (previous != -1 || source.dominance == 1);
+    }
+
+    private static void fireDominanceChanged(ServerWorld world, CorruptionSources.CorruptionSource source) {
+        VitiumDominanceCallback.EVENT.invoker().onDominanceChanged(world, source.position, source.isVitiumDominant());
+    }
+
+    /**
+     * Finds the corruption source closest to a position.
+     *
+     * @param maxChunkRadius How many chunks away from the position to search.
+     * @return The closest source, or null if there is none within the radius.
+     */
+    @Nullable
+    public static CorruptionSources.CorruptionSource findNearestSource(ServerWorld world, BlockPos pos, int maxChunkRadius) {
+        return CorruptionSources.get(world).findNearest(pos, maxChunkRadius);
+    }
+
+    public static int getSourceCount(ServerWorld world) {
+        return CorruptionSources.get(world).size();
+    }
+
+    /**
+     * Sets the time corruption may take per world and tick.
+     */
+    public static void setTickBudgetMicros(long micros) {
+        tickBudgetNanos = Math.max(0, micros) * 1000L;
+    }
+
+    /**
+     * Sets how many corruption sources may be scanned or processed per world and tick.
+     */
+    public static void setMaxSourcesPerTick(int sources) {
+        maxSourcesPerTick = Math.max(1, sources);
+    }
+
+    /**
+     * Sets how many blocks may be converted to sculk per world and tick.
+     */
+    public static void setMaxConversionsPerTick(int conversions) {
+        maxConversionsPerTick = Math.max(1, conversions);
+    }
+
+    /**
+     * Gets the number of sources still waiting in the current round of a world, whether already queued or in
+     * chunks that are not scanned yet.
+     */
+    public static int getBacklog(ServerWorld world) {
+        Schedule schedule = SCHEDULES.get(world.getRegistryKey());
+        if (schedule == null) {
+            return 0;
+        }
+        int backlog = schedule.queue.size();
+        if (schedule.scanChunks != null) {
+            CorruptionSources sources = CorruptionSources.get(world);
+            for (int i = schedule.scanIndex; i < schedule.scanChunks.size(); i++) {
+                backlog += sources.getSources(new ChunkPos(schedule.scanChunks.getLong(i))).size();
             }
+        }
+        return backlog;
+    }
+
+    /**
+     * Gets the number of sculk conversions of a world waiting to be applied.
+     */
+    public static int getPendingConversions(ServerWorld world) {
+        Schedule schedule = SCHEDULES.get(world.getRegistryKey());
+        return schedule != null ? schedule.conversionCount : 0;
+    }
+
+    public static void onChunkLoad(ServerWorld world, ChunkPos pos) {
+        CorruptionSources.get(world).onChunkLoad(pos);
+    }
+
+    public static void onChunkUnload(ServerWorld world, ChunkPos pos) {
+        CorruptionSources.get(world).onChunkUnload(pos);
+    }
 
-            // Calculate total vitium (base + modifications)
-            double totalVitium = baseDensity.getDensity(VITIUM_ASPECT) +
-                    modifications.getOrDefault(VITIUM_ASPECT, 0.0);
+    public static void onWorldUnload(ServerWorld world) {
+        SCHEDULES.remove(world.getRegistryKey());
+    }
+
+    public static void reset() {
+        SCHEDULES.clear();
+    }
 
-            // Calculate total other aspects (base + modifications)
-            double totalOtherAspects = 0;
-            for (Map.Entry<Identifier, Double> baseEntry : baseDensity.getDensities().entrySet()) {
-                if (!baseEntry.getKey().equals(VITIUM_ASPECT)) {
-                    totalOtherAspects += baseEntry.getValue() +
-                            modifications.getOrDefault(baseEntry.getKey(), 0.0);
+    public static void tick(ServerWorld world) {
+        Schedule schedule = SCHEDULES.computeIfAbsent(world.getRegistryKey(), key -> new Schedule());
+        if (schedule.queue.isEmpty() && schedule.scanChunks == null) {
+            // Sources in unloaded chunks are skipped until their chunk is loaded again
+            schedule.scanChunks = new LongArrayList(CorruptionSources.get(world).getLoadedChunks());
+            schedule.scanIndex = 0;
+        }
+
+        long deadline = System.nanoTime() + tickBudgetNanos;
+        int operations = 0;
+
+        // Scan the chunks of the round first, so sources are processed nearest to a player first
+        if (schedule.scanChunks != null) {
+            CorruptionSources sources = CorruptionSources.get(world);
+            List<? extends PlayerEntity> players = world.getPlayers();
+            while (schedule.scanIndex < schedule.scanChunks.size()
+                    && operations < maxSourcesPerTick && System.nanoTime() < deadline) {
+                long chunkKey = schedule.scanChunks.getLong(schedule.scanIndex++);
+                for (CorruptionSources.CorruptionSource source : sources.getLiveSources(world, chunkKey)) {
+                    double distance = Double.MAX_VALUE;
+                    for (PlayerEntity player : players) {
+                        distance = Math.min(distance, player.squaredDistanceTo(source.position.toCenterPos()));
+                    }
+                    schedule.queue.add(new QueuedSource(source, distance));
+                    operations++;
                 }
             }
+            if (schedule.scanIndex >= schedule.scanChunks.size()) {
+                schedule.scanChunks = null;
+            }
+        }
 
-            // Add other aspects that are only in modifications but not in base
-            for (Map.Entry<Identifier, Double> modEntry : modifications.entrySet()) {
-                if (!modEntry.getKey().equals(VITIUM_ASPECT) &&
-                        !baseDensity.getDensities().containsKey(modEntry.getKey())) {
-                    totalOtherAspects += modEntry.getValue();
-                }
+        if (schedule.scanChunks == null) {
+            while (!schedule.queue.isEmpty() && operations < maxSourcesPerTick && System.nanoTime() < deadline) {
+                processSource(world, schedule, schedule.queue.poll().source());
+                operations++;
             }
+        }
 
-            // Only start corruption if vitium is dominant
-            if (totalVitium > totalOtherAspects) {
-                // If vitium is dominant, convert other aspects to vitium
-                for (Map.Entry<Identifier, Double> aspectEntry : modifications.entrySet()) {
-                    if (aspectEntry.getKey().equals(VITIUM_ASPECT)) {
-                        continue;
-                    }
-                    double convertedAmount = aspectEntry.getValue() * 0.1; // Convert 10% per check
-                    DynamicAetherDensityManager.addModification(
-                            biomeId,
-                            aspectEntry.getKey(),
-                            -convertedAmount
-                    );
-                    DynamicAetherDensityManager.addModification(
-                            biomeId,
-                            VITIUM_ASPECT,
-                            convertedAmount
-                    );
-                }
+        applyConversions(world, schedule);
+    }
 
-                // Replace random blocks with sculk from each source when vitium is dominant
-                for (CorruptionSource source : sources) {
-                    if (world.getRandom().nextFloat() < 0.1f) { // 10% chance per source per tick
-                        replaceRandomBlockWithSculk(world, source.position);
-                    }
-                }
+    private static void processSource(ServerWorld world, Schedule schedule, CorruptionSources.CorruptionSource source) {
+        if (source.isRemoved()) {
+            return;
+        }
+
+        // Corruption only progresses in loaded chunks
+        AetherField field = DynamicAetherDensityManager.getLoadedField(world,
+                ChunkSectionPos.getSectionCoord(source.position.getX()),
+                ChunkSectionPos.getSectionCoord(source.position.getZ()));
+        if (field == null) {
+            return;
+        }
+
+        // Dominance is kept up to date by field changes, only new sources and reloaded base densities need a check
+        if ((source.dominance == -1 || source.baseVersion != BiomeAetherDensityManager.getVersion())
+                && updateDominance(world, source, field)) {
+            fireDominanceChanged(world, source);
+        }
+
+        // Only start corruption if vitium is dominant
+        if (source.isVitiumDominant()) {
+            // A spreading source stays alive
+            CorruptionSources.get(world).refresh(world, source);
+
+            // If vitium is dominant, convert 10% of the other aspects to vitium per check, as one field change
+            DynamicAetherDensityManager.convertAspects(world, source.position, VITIUM_ASPECT, 0.1);
+
+            // Replace random blocks with sculk around the source when vitium is dominant
+            if (world.getRandom().nextFloat() < 0.1f) { // 10% chance per source per round
+                queueRandomConversion(world, schedule, source.position);
             }
         }
     }
 
-    private static void replaceRandomBlockWithSculk(World world, BlockPos centerPos) {
+    private static void queueRandomConversion(ServerWorld world, Schedule schedule, BlockPos centerPos) {
+        // Conversions are random, so dropping some while many are waiting changes nothing but the pace
+        if (schedule.conversionCount >= maxConversionsPerTick * MAX_PENDING_CONVERSION_TICKS) {
+            return;
+        }
+
         // Get a random position within 16 blocks
         BlockPos targetPos = centerPos.add(
                 world.random.nextInt(32) - 16,
@@ -96,30 +310,118 @@ public class CorruptionManager {
                 world.random.nextInt(32) - 16
         );
 
-        // Check if the block is replaceable
-        if (!world.getBlockState(targetPos).isAir() &&
-                !(world.getBlockState(targetPos).getBlock() instanceof SculkSpreadable)) {
-            // Replace with sculk block
-            world.setBlockState(targetPos, Blocks.SCULK.getDefaultState());
-
-            // Visual and sound effects
-            if (world instanceof ServerWorld serverWorld) {
-                serverWorld.spawnParticles(ParticleTypes.SOUL,
-                        targetPos.getX() + 0.5, targetPos.getY() + 0.5, targetPos.getZ() + 0.5,
-                        5, 0.2, 0.2, 0.2, 0.0);
-                world.playSound(null, targetPos, SoundEvents.BLOCK_SCULK_PLACE,
-                        SoundCategory.BLOCKS, 1.0f, 1.0f);
-            }
+        // Never load a chunk for a conversion
+        if (world.isOutOfHeightLimit(targetPos) ||
+                !world.isChunkLoaded(ChunkSectionPos.getSectionCoord(targetPos.getX()), ChunkSectionPos.getSectionCoord(targetPos.getZ()))) {
+            return;
         }
+
+        schedule.conversions.computeIfAbsent(ChunkSectionPos.toLong(targetPos), key -> new LongArrayList(4))
+                .add(targetPos.asLong());
+        schedule.conversionCount++;
     }
 
-    private static class CorruptionSource {
-        public final BlockPos position;
-        public final int strength;
+    /**
+     * Applies queued conversions, one chunk section at a time, until the per-tick limit is reached.
+     */
+    private static void applyConversions(ServerWorld world, Schedule schedule) {
+        Long2ObjectOpenHashMap<LongArrayList> pending = schedule.conversions;
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        BlockState sculk = Blocks.SCULK.getDefaultState();
+        LongOpenHashSet converted = new LongOpenHashSet();
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        int attempts = 0;
+
+        ObjectIterator<Long2ObjectMap.Entry<LongArrayList>> entries = pending.long2ObjectEntrySet().iterator();
+        while (entries.hasNext() && attempts < maxConversionsPerTick) {
+            // Read before removing, the entry refers to a table slot that removal may refill
+            Long2ObjectMap.Entry<LongArrayList> entry = entries.next();
+            long sectionKey = entry.getLongKey();
+            LongArrayList targets = entry.getValue();
+            entries.remove();
+            schedule.conversionCount -= targets.size();
+            attempts += targets.size();
+
+            ChunkSectionPos sectionPos = ChunkSectionPos.from(sectionKey);
+            WorldChunk chunk = world.getChunkManager().getWorldChunk(sectionPos.getSectionX(), sectionPos.getSectionZ());
+            if (chunk == null) {
+                continue;
+            }
+            ChunkSection section = chunk.getSection(chunk.sectionCoordToIndex(sectionPos.getSectionY()));
+
+            converted.clear();
+            double sumX = 0, sumY = 0, sumZ = 0;
+            for (int i = 0; i < targets.size(); i++) {
+                pos.set(targets.getLong(i));
+                BlockState oldState = section.getBlockState(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+
+                // Check if the block is replaceable
+                if (oldState.isAir() || oldState.getBlock() instanceof SculkSpreadable || converted.contains(pos.asLong())) {
+                    continue;
+                }
+
+                // Goes through the world for lighting, heightmaps, listeners and neighbour shape updates; only the
+                // neighbour block updates are left out and sent once per neighbour below
+                if (!world.setBlockState(pos, sculk, Block.NOTIFY_LISTENERS)) {
+                    continue;
+                }
+                converted.add(pos.asLong());
+                if (sculk.hasComparatorOutput()) {
+                    world.updateComparators(pos, Blocks.SCULK);
+                }
+
+                sumX += pos.getX();
+                sumY += pos.getY();
+                sumZ += pos.getZ();
+            }
+
+            if (converted.isEmpty()) {
+                continue;
+            }
 
-        public CorruptionSource(BlockPos position, int strength) {
-            this.position = position;
-            this.strength = strength;
+            // Notify each neighbour once, skipping blocks converted in the same batch
+            LongIterator iterator = converted.iterator();
+            BlockPos.Mutable neighbour = new BlockPos.Mutable();
+            LongOpenHashSet notified = new LongOpenHashSet();
+            while (iterator.hasNext()) {
+                pos.set(iterator.nextLong());
+                for (Direction direction : Direction.values()) {
+                    neighbour.set(pos, direction);
+                    long key = neighbour.asLong();
+                    if (!converted.contains(key) && notified.add(key)) {
+                        world.updateNeighbor(neighbour, Blocks.SCULK, pos);
+                    }
+                }
+            }
+
+            // Visual and sound effects, once per section
+            int count = converted.size();
+            double x = sumX / count + 0.5;
+            double y = sumY / count + 0.5;
+            double z = sumZ / count + 0.5;
+            // Spread the particles over the section when several blocks were converted
+            double spread = count > 1 ? 4.0 : 0.2;
+            world.spawnParticles(ParticleTypes.SOUL, x, y, z, 5 * count, spread, spread, spread, 0.0);
+            world.playSound(null, x, y, z, SoundEvents.BLOCK_SCULK_PLACE, SoundCategory.BLOCKS, 1.0f, 1.0f);
         }
     }
+
+    private record QueuedSource(CorruptionSources.CorruptionSource source, double priority) {}
+
+    /**
+     * Corruption work of one world: the current round and the conversions waiting to be applied.
+     */
+    private static final class Schedule {
+        private final PriorityQueue<QueuedSource> queue = new PriorityQueue<>(Comparator.comparingDouble(QueuedSource::priority));
+        private final Long2ObjectOpenHashMap<LongArrayList> conversions = new Long2ObjectOpenHashMap<>();
+        private int conversionCount = 0;
+
+        // Chunks of the round being scanned, null once the round is fully queued
+        @Nullable
+        private LongArrayList scanChunks;
+        private int scanIndex;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,275 @@
+package dev.overgrown.aspectslib.aether;
+
+import dev.overgrown.aspectslib.AspectsLib;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.PersistentState;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Corruption sources of one world, indexed by chunk and saved with the world.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ * <li>Stores sources in a chunk-keyed map, and tracks which of those chunks are loaded</li>
+ * <li>Merges sources added close to an existing one and expires sources that stopped spreading</li>
+ * <li>Saves the sources in {@code data/aspectslib_corruption.dat}</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Accessed through {@link CorruptionManager}, which loads it on first use in a world</li>
+ * </p>
+ * Sources are saved as parallel arrays of packed positions, strengths and expiry times.
+ */
+public class CorruptionSources extends PersistentState {
+
+    private static final String ID = AspectsLib.MOD_ID + "_corruption";
+
+    /**
+     * Sources added within this distance of an existing source in the same chunk are merged into it.
+     */
+    private static final int MERGE_DISTANCE = 4;
+
+    /**
+     * Ticks a source lives without spreading. Every spread resets its expiry.
+     */
+    public static final long LIFETIME = 72000L;
+
+    private final Long2ObjectOpenHashMap<List<CorruptionSource>> sourcesByChunk = new Long2ObjectOpenHashMap<>();
+    private final LongOpenHashSet loadedChunks = new LongOpenHashSet();
+    private int size = 0;
+
+    public static CorruptionSources get(ServerWorld world) {
+        return world.getPersistentStateManager().getOrCreate(
+                nbt -> fromNbt(world, nbt), CorruptionSources::new, ID);
+    }
+
+    /**
+     * Adds a source, or merges it into an existing source nearby.
+     */
+    public CorruptionSource add(ServerWorld world, BlockPos pos, int strength, @Nullable Identifier biomeId) {
+        long chunkKey = ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4);
+        long expiresAt = world.getTime() + LIFETIME;
+
+        List<CorruptionSource> sources = sourcesByChunk.computeIfAbsent(chunkKey, key -> new ArrayList<>(2));
+        for (CorruptionSource source : sources) {
+            if (source.position.getManhattanDistance(pos) <= MERGE_DISTANCE) {
+                source.strength += strength;
+                source.expiresAt = Math.max(source.expiresAt, expiresAt);
+                markDirty();
+                return source;
+            }
+        }
+
+        CorruptionSource source = new CorruptionSource(pos.toImmutable(), strength, expiresAt, biomeId);
+        sources.add(source);
+        size++;
+        if (world.isChunkLoaded(pos.getX() >> 4, pos.getZ() >> 4)) {
+            loadedChunks.add(chunkKey);
+        }
+        markDirty();
+        return source;
+    }
+
+    /**
+     * Extends the life of a source that is still spreading.
+     */
+    public void refresh(ServerWorld world, CorruptionSource source) {
+        source.expiresAt = world.getTime() + LIFETIME;
+        markDirty();
+    }
+
+    /**
+     * Removes expired sources from a chunk.
+     *
+     * @return The sources left in the chunk.
+     */
+    public List<CorruptionSource> getLiveSources(ServerWorld world, long chunkKey) {
+        List<CorruptionSource> sources = sourcesByChunk.get(chunkKey);
+        if (sources == null) {
+            return Collections.emptyList();
+        }
+
+        long time = world.getTime();
+        int before = sources.size();
+        sources.removeIf(source -> {
+            if (source.expiresAt <= time) {
+                source.removed = true;
+                return true;
+            }
+            return false;
+        });
+        if (sources.size() != before) {
+            size -= before - sources.size();
+            markDirty();
+        }
+        if (sources.isEmpty()) {
+            sourcesByChunk.remove(chunkKey);
+            loadedChunks.remove(chunkKey);
+        }
+        return sources;
+    }
+
+    public List<CorruptionSource> getSources(ChunkPos pos) {
+        List<CorruptionSource> sources = sourcesByChunk.get(pos.toLong());
+        return sources != null ? Collections.unmodifiableList(sources) : Collections.emptyList();
+    }
+
+    /**
+     * Finds the source closest to a position, searching chunk rings outwards.
+     *
+     * @param maxChunkRadius How many chunks away from the position to search.
+     * @return The closest source, or null if there is none within the radius.
+     */
+    @Nullable
+    public CorruptionSource findNearest(BlockPos pos, int maxChunkRadius) {
+        int centerX = pos.getX() >> 4;
+        int centerZ = pos.getZ() >> 4;
+        CorruptionSource nearest = null;
+        double nearestDistance = Double.MAX_VALUE;
+
+        for (int radius = 0; radius <= maxChunkRadius; radius++) {
+            // Any source in a farther ring is at least (radius - 1) * 16 blocks away
+            double ringDistance = Math.max(0, radius - 1) * 16.0;
+            if (nearest != null && ringDistance * ringDistance > nearestDistance) {
+                break;
+            }
+
+            for (int dx = -radius; dx <= radius; dx++) {
+                for (int dz = -radius; dz <= radius; dz++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dz)) != radius) continue;
+
+                    List<CorruptionSource> sources = sourcesByChunk.get(ChunkPos.toLong(centerX + dx, centerZ + dz));
+                    if (sources == null) continue;
+
+                    for (CorruptionSource source : sources) {
+                        double distance = source.position.getSquaredDistance(pos);
+                        if (distance < nearestDistance) {
+                            nearestDistance = distance;
+                            nearest = source;
+                        }
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Gets the chunks that hold sources and are currently loaded.
+     */
+    public LongSet getLoadedChunks() {
+        return loadedChunks;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void onChunkLoad(ChunkPos pos) {
+        if (sourcesByChunk.containsKey(pos.toLong())) {
+            loadedChunks.add(pos.toLong());
+        }
+    }
+
+    public void onChunkUnload(ChunkPos pos) {
+        loadedChunks.remove(pos.toLong());
+    }
+
+    @Override
+    public NbtCompound writeNbt(NbtCompound nbt) {
+        long[] positions = new long[size];
+        int[] strengths = new int[size];
+        long[] expiry = new long[size];
+        int i = 0;
+        for (List<CorruptionSource> sources : sourcesByChunk.values()) {
+            for (CorruptionSource source : sources) {
+                positions[i] = source.position.asLong();
+                strengths[i] = source.strength;
+                expiry[i] = source.expiresAt;
+                i++;
+            }
+        }
+        nbt.putLongArray("Positions", positions);
+        nbt.putIntArray("Strengths", strengths);
+        nbt.putLongArray("Expiry", expiry);
+        return nbt;
+    }
+
+    private static CorruptionSources fromNbt(ServerWorld world, NbtCompound nbt) {
+        CorruptionSources state = new CorruptionSources();
+        long[] positions = nbt.getLongArray("Positions");
+        int[] strengths = nbt.getIntArray("Strengths");
+        long[] expiry = nbt.getLongArray("Expiry");
+        if (positions.length != strengths.length || positions.length != expiry.length) {
+            AspectsLib.LOGGER.warn("Discarding invalid corruption sources of {}", world.getRegistryKey().getValue());
+            return state;
+        }
+
+        for (int i = 0; i < positions.length; i++) {
+            BlockPos pos = BlockPos.fromLong(positions[i]);
+            long chunkKey = ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4);
+            state.sourcesByChunk.computeIfAbsent(chunkKey, key -> new ArrayList<>(2))
+                    .add(new CorruptionSource(pos, strengths[i], expiry[i], null));
+            state.size++;
+        }
+        return state;
+    }
+
+    public static class CorruptionSource {
+        public final BlockPos position;
+        private int strength;
+        private long expiresAt;
+        private boolean removed = false;
+
+        // Vitium dominance as last evaluated by CorruptionManager, -1 if not evaluated yet
+        int dominance = -1;
+        int baseVersion = -1;
+
+        // Resolved lazily for sources loaded from disk
+        @Nullable
+        private Identifier biomeId;
+
+        private CorruptionSource(BlockPos position, int strength, long expiresAt, @Nullable Identifier biomeId) {
+            this.position = position;
+            this.strength = strength;
+            this.expiresAt = expiresAt;
+            this.biomeId = biomeId;
+        }
+
+        public int getStrength() {
+            return strength;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public boolean isRemoved() {
+            return removed;
+        }
+
+        public boolean isVitiumDominant() {
+            return dominance == 1;
+        }
+
+        @Nullable
+        public Identifier getBiomeId(ServerWorld world) {
+            if (biomeId == null) {
+                biomeId = AetherDensityManager.getBiomeId(world, world.getBiome(position));
+            }
+            return biomeId;
+        }
+    }
+}
@@ -1,34 +1,202 @@
 package dev.overgrown.aspectslib.aether;
 
+import dev.overgrown.aspectslib.api.IAetherFieldHolder;
+import dev.overgrown.aspectslib.data.AspectOrdinals;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+import org.jetbrains.annotations.Nullable;
+
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Dynamic aether modifications, stored per chunk in an {@link AetherField} that is saved with the chunk.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ * <li>Applies corruption and drain to the chunk they happen in</li>
+ * <li>Runs decay and diffusion over loaded chunks, a bounded number of chunks per tick</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Ticked per world from {@link dev.overgrown.aspectslib.AspectsLib}</li>
+ * <li>Sampled by {@link AetherDensityManager}, through {@link AetherDensityCache}</li>
+ * </p>
+ * Only loaded chunks with a non-empty field are stepped; they are visited round-robin, so every active chunk is
+ * updated once per {@code activeChunks / CHUNKS_PER_TICK} ticks. Nothing is kept for unloaded chunks.
+ * <p>
+ * Persistence follows the chunk: a field is read with its chunk, on the chunk loading workers, so nothing is loaded
+ * at world start and every dimension keeps its own fields. A change only marks its chunk for saving, so changes are
+ * batched until the next autosave and chunks whose field did not change are not written again. Empty fields are
+ * not saved at all, see {@link dev.overgrown.aspectslib.mixin.ChunkSerializerMixin}.
+ */
 public class DynamicAetherDensityManager {
-    private static final Map<Identifier, Map<Identifier, Double>> modifications = new ConcurrentHashMap<>();
 
-    public static void addModification(Identifier biomeId, Identifier aspect, double amount) {
-        modifications.computeIfAbsent(biomeId, k -> new ConcurrentHashMap<>())
-                .merge(aspect, amount, Double::sum);
+    private static final int CHUNKS_PER_TICK = 32;
+
+    /**
+     * Fraction of every offset removed per step.
+     */
+    private static final double DECAY = 0.002;
+
+    /**
+     * Fraction of every difference to a neighbouring chunk exchanged per step.
+     */
+    private static final double DIFFUSION = 0.05;
+
+    private static final Map<RegistryKey<World>, LongLinkedOpenHashSet> ACTIVE_CHUNKS = new ConcurrentHashMap<>();
+
+    public static void addModification(ServerWorld world, BlockPos pos, Identifier aspect, double amount) {
+        addModification(world, world.getWorldChunk(pos), aspect, amount);
+    }
+
+    public static void addModification(ServerWorld world, WorldChunk chunk, Identifier aspect, double amount) {
+        getField(chunk).add(aspect, amount);
+        onChanged(world, chunk);
+    }
+
+    public static void drainAllAspects(ServerWorld world, BlockPos pos, double amount) {
+        drainAllAspects(world, world.getWorldChunk(pos), amount);
     }
 
-    public static void drainAllAspects(Identifier biomeId, double amount) {
-        Map<Identifier, Double> biomeMods = modifications.get(biomeId);
-        if (biomeMods != null) {
-            biomeMods.replaceAll((aspect, current) -> current - amount);
+    public static void drainAllAspects(ServerWorld world, WorldChunk chunk, double amount) {
+        AetherField field = getField(chunk);
+        if (!field.isEmpty()) {
+            field.drainAll(amount);
+            onChanged(world, chunk);
         }
     }
 
-    public static double getModification(Identifier biomeId, Identifier aspect) {
-        Map<Identifier, Double> biomeMods = modifications.get(biomeId);
-        return biomeMods != null ? biomeMods.getOrDefault(aspect, 0.0) : 0.0;
+    /**
+     * Moves a fraction of the offset of every other aspect in the chunk containing a position to the target aspect,
+     * as a single change of the chunk's field.
+     */
+    public static void convertAspects(ServerWorld world, BlockPos pos, Identifier target, double fraction) {
+        int ordinal = AspectOrdinals.get(target);
+        if (ordinal < 0) {
+            return;
+        }
+        WorldChunk chunk = world.getWorldChunk(pos);
+        if (getField(chunk).convertInto(ordinal, fraction)) {
+            onChanged(world, chunk);
+        }
     }
 
-    public static Map<Identifier, Double> getModifications(Identifier biomeId) {
-        return modifications.get(biomeId);
+    public static double getModification(ServerWorld world, BlockPos pos, Identifier aspect) {
+        return getField(world.getWorldChunk(pos)).get(aspect);
+    }
+
+    /**
+     * Gets a copy of the modifications of the chunk containing a position.
+     */
+    public static Map<Identifier, Double> getModifications(ServerWorld world, BlockPos pos) {
+        return getField(world.getWorldChunk(pos)).toMap();
+    }
+
+    public static AetherField getField(WorldChunk chunk) {
+        return ((IAetherFieldHolder) chunk).aspectslib$getAetherField();
+    }
+
+    /**
+     * Gets the field of a chunk only if the chunk is loaded.
+     */
+    @Nullable
+    public static AetherField getLoadedField(ServerWorld world, int chunkX, int chunkZ) {
+        WorldChunk chunk = world.getChunkManager().getWorldChunk(chunkX, chunkZ);
+        return chunk != null ? getField(chunk) : null;
+    }
+
+    public static void onChunkLoad(ServerWorld world, WorldChunk chunk) {
+        if (!getField(chunk).isEmpty()) {
+            activeChunks(world).add(chunk.getPos().toLong());
+        }
+    }
+
+    public static void onChunkUnload(ServerWorld world, WorldChunk chunk) {
+        LongLinkedOpenHashSet active = ACTIVE_CHUNKS.get(world.getRegistryKey());
+        if (active != null) {
+            active.remove(chunk.getPos().toLong());
+        }
+    }
+
+    public static void onWorldUnload(ServerWorld world) {
+        ACTIVE_CHUNKS.remove(world.getRegistryKey());
     }
 
     public static void reset() {
-        modifications.clear();
+        ACTIVE_CHUNKS.clear();
+    }
+
+    /**
+     * Decays and diffuses the fields of the next active chunks.
+     */
+    public static void tick(ServerWorld world) {
+        LongLinkedOpenHashSet active = ACTIVE_CHUNKS.get(world.getRegistryKey());
+        if (active == null || active.isEmpty()) {
+            return;
+        }
+
+        int steps = Math.min(CHUNKS_PER_TICK, active.size());
+        for (int i = 0; i < steps && !active.isEmpty(); i++) {
+            // Round-robin: take the oldest entry and re-queue it at the end if it stays active
+            long key = active.removeFirstLong();
+            WorldChunk chunk = world.getChunkManager().getWorldChunk(ChunkPos.getPackedX(key), ChunkPos.getPackedZ(key));
+            if (chunk == null) {
+                continue;
+            }
+
+            AetherField field = getField(chunk);
+            step(world, chunk, field);
+            if (!field.isEmpty()) {
+                active.addAndMoveToLast(key);
+            }
+        }
+    }
+
+    private static void step(ServerWorld world, WorldChunk chunk, AetherField field) {
+        ChunkPos pos = chunk.getPos();
+        boolean changed = field.decay(DECAY);
+
+        changed |= diffuse(world, field, pos.x + 1, pos.z);
+        changed |= diffuse(world, field, pos.x - 1, pos.z);
+        changed |= diffuse(world, field, pos.x, pos.z + 1);
+        changed |= diffuse(world, field, pos.x, pos.z - 1);
+
+        if (changed) {
+            onChanged(world, chunk);
+        }
+    }
+
+    private static boolean diffuse(ServerWorld world, AetherField field, int chunkX, int chunkZ) {
+        WorldChunk neighbour = world.getChunkManager().getWorldChunk(chunkX, chunkZ);
+        if (neighbour == null) {
+            return false;
+        }
+        if (field.diffuseWith(getField(neighbour), DIFFUSION)) {
+            onChanged(world, neighbour);
+            return true;
+        }
+        return false;
+    }
+
+    private static void onChanged(ServerWorld world, WorldChunk chunk) {
+        chunk.setNeedsSaving(true);
+        AetherField field = getField(chunk);
+        if (!field.isEmpty()) {
+            activeChunks(world).add(chunk.getPos().toLong());
+        }
+        // Corruption sources in the chunk re-evaluate their vitium dominance
+        CorruptionManager.onFieldChanged(world, chunk.getPos(), field);
+    }
+
+    private static LongLinkedOpenHashSet activeChunks(ServerWorld world) {
+        return ACTIVE_CHUNKS.computeIfAbsent(world.getRegistryKey(), key -> new LongLinkedOpenHashSet());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,144 @@
+package dev.overgrown.aspectslib.aether;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.structure.StructureStart;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-world spatial index of the structures that carry an aether modifier.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ * <li>Stores, for every loaded chunk, the bounding boxes of modifier-bearing structures overlapping it</li>
+ * <li>Answers point and box queries without visiting structures that have no modifier</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Filled when chunks load and emptied when they unload (see {@link dev.overgrown.aspectslib.AspectsLib})</li>
+ * <li>Queried by {@link AetherDensityCache} when it resolves a chunk section</li>
+ * </p>
+ * Chunks are indexed through their structure references rather than their own structure starts, so structures
+ * that started in a neighbouring chunk also apply. The index is a hash of chunk cells: structures span at most a
+ * few chunks, so a cell holds only a handful of boxes.
+ */
+public class StructureAetherIndex {
+
+    private static final Entry[] EMPTY = new Entry[0];
+
+    private static final Map<RegistryKey<World>, StructureAetherIndex> INDICES = new ConcurrentHashMap<>();
+
+    private final Long2ObjectOpenHashMap<Entry[]> cells = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Gets the index of a world, creating it if needed.
+     */
+    public static StructureAetherIndex get(ServerWorld world) {
+        return INDICES.computeIfAbsent(world.getRegistryKey(), key -> new StructureAetherIndex());
+    }
+
+    public static void onChunkLoad(ServerWorld world, ChunkPos pos) {
+        get(world).index(world, pos);
+    }
+
+    public static void onChunkUnload(ServerWorld world, ChunkPos pos) {
+        StructureAetherIndex index = INDICES.get(world.getRegistryKey());
+        if (index != null) {
+            index.remove(pos);
+        }
+    }
+
+    public static void onWorldUnload(ServerWorld world) {
+        INDICES.remove(world.getRegistryKey());
+    }
+
+    /**
+     * Drops every index, e.g. after the structure modifiers were reloaded. Chunks are indexed again on demand.
+     */
+    public static void invalidateAll() {
+        INDICES.clear();
+    }
+
+    /**
+     * Gets the modifier-bearing structures of a chunk whose bounding box intersects the given box.
+     */
+    public synchronized List<Entry> getIntersecting(ServerWorld world, ChunkPos chunkPos, BlockBox box) {
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : getCell(world, chunkPos)) {
+            if (entry.box().intersects(box)) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the modifier-bearing structures whose bounding box contains the given position.
+     */
+    public synchronized List<Entry> getContaining(ServerWorld world, BlockPos pos) {
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : getCell(world, new ChunkPos(pos))) {
+            if (entry.box().contains(pos)) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    private Entry[] getCell(ServerWorld world, ChunkPos pos) {
+        Entry[] cell = cells.get(pos.toLong());
+        if (cell != null) {
+            return cell;
+        }
+
+        cell = collect(world, pos);
+        // Only chunks that will fire an unload event may be kept
+        if (world.getChunkManager().isChunkLoaded(pos.x, pos.z)) {
+            cells.put(pos.toLong(), cell);
+        }
+        return cell;
+    }
+
+    private synchronized void index(ServerWorld world, ChunkPos pos) {
+        cells.put(pos.toLong(), collect(world, pos));
+    }
+
+    private synchronized void remove(ChunkPos pos) {
+        cells.remove(pos.toLong());
+    }
+
+    private static Entry[] collect(ServerWorld world, ChunkPos pos) {
+        if (StructureAetherModifierManager.MODIFIER_MAP.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        List<StructureStart> starts = world.getStructureAccessor().getStructureStarts(pos, structure -> {
+            Identifier structureId = AetherDensityManager.getStructureId(world, structure);
+            return structureId != null && StructureAetherModifierManager.MODIFIER_MAP.containsKey(structureId);
+        });
+        for (StructureStart start : starts) {
+            if (start == null || start.getBoundingBox() == null) continue;
+
+            Identifier structureId = AetherDensityManager.getStructureId(world, start.getStructure());
+            AetherModifier modifier = StructureAetherModifierManager.MODIFIER_MAP.get(structureId);
+            if (modifier != null) {
+                entries.add(new Entry(start.getBoundingBox(), modifier));
+            }
+        }
+        return entries.isEmpty() ? EMPTY : entries.toArray(EMPTY);
+    }
+
+    public record Entry(BlockBox box, AetherModifier modifier) {}
+}
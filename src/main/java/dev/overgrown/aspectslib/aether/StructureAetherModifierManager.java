@@ -48,6 +48,8 @@ public class StructureAetherModifierManager extends JsonDataLoader implements Id
             }
         });
         AspectsLib.LOGGER.info("Loaded {} structure aether modifiers", MODIFIER_MAP.size());
+        StructureAetherIndex.invalidateAll();
+        AetherDensityCache.invalidateAll();
     }
 
     @Override
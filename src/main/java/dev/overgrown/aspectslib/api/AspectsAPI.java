@@ -1,13 +1,18 @@
 package dev.overgrown.aspectslib.api;
 
 import dev.overgrown.aspectslib.data.*;
+import dev.overgrown.aspectslib.entity.aura_node.AuraNodeEntity;
+import dev.overgrown.aspectslib.entity.aura_node.AuraNodeSystem;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.registry.Registries;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -17,6 +22,7 @@ import java.util.Optional;
  * <li>Access to aspect data on items</li>
  * <li>Aspect lookup methods</li>
  * <li>Item-aspect registration</li>
+ * <li>Spatial queries for aura nodes</li>
  * </p>
  * <p>
 * <br>
@@ -38,6 +44,12 @@ import java.util.Optional;
  * AspectsAPI.registerItemAspect(Items.DIAMOND, new Identifier("aspectslib:vitreus"), 10);
  * }</pre>
  * </p>
+ * <p>
+ * <pre>{@code
+ * // Find the aura nodes within 16 blocks
+ * List<AuraNodeEntity> nodes = AspectsAPI.findNodes(world, pos, 16);
+ * }</pre>
+ * </p>
  */
 public class AspectsAPI {
 
@@ -158,4 +170,38 @@ public class AspectsAPI {
     public static java.util.Map<Identifier, Aspect> getAllAspects() {
         return java.util.Collections.unmodifiableMap(ModRegistries.ASPECTS);
     }
+
+    /**
+     * Finds the loaded aura nodes within a radius of a position. Server thread only.
+     * @param world The world to search
+     * @param pos The center of the search
+     * @param radius The search radius in blocks
+     * @return The nodes found, in no particular order
+     */
+    public static List<AuraNodeEntity> findNodes(ServerWorld world, BlockPos pos, double radius) {
+        return AuraNodeSystem.findNodes(world, pos, radius);
+    }
+
+    /**
+     * Finds the loaded aura node closest to a position. Server thread only.
+     * @param world The world to search
+     * @param pos The center of the search
+     * @param maxRadius The search radius in blocks
+     * @return The closest node, or null if there is none within the radius
+     */
+    @Nullable
+    public static AuraNodeEntity findNearestNode(ServerWorld world, BlockPos pos, double maxRadius) {
+        return AuraNodeSystem.findNearestNode(world, pos, maxRadius);
+    }
+
+    /**
+     * Gets the summed current aspects of all loaded aura nodes in the region around a position. Regions are
+     * {@link AuraNodeSystem#getRegionSize()} blocks wide. Server thread only.
+     * @param world The world to query
+     * @param pos A position inside the region
+     * @return The aspect totals, or AspectData.DEFAULT if the region holds no nodes
+     */
+    public static AspectData getRegionAura(ServerWorld world, BlockPos pos) {
+        return AuraNodeSystem.getRegionAura(world, pos);
+    }
 }
\ No newline at end of file
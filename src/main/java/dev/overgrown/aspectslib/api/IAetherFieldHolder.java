@@ -0,0 +1,21 @@
+package dev.overgrown.aspectslib.api;
+
+import dev.overgrown.aspectslib.aether.AetherField;
+
+/**
+ * Interface for chunks carrying dynamic aether modifications.
+ * Implemented via mixin on Chunk.
+ */
+public interface IAetherFieldHolder {
+    /**
+     * Gets the aether field of this chunk, creating an empty one if needed
+     * @return The aether field, never null
+     */
+    AetherField aspectslib$getAetherField();
+
+    /**
+     * Replaces the aether field of this chunk, e.g. when it is loaded from disk
+     * @param field The aether field
+     */
+    void aspectslib$setAetherField(AetherField field);
+}
@@ -0,0 +1,29 @@
+package dev.overgrown.aspectslib.api;
+
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.EventFactory;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Called when vitium becomes dominant at a corruption source, or stops being dominant there.
+ * <p>
+ * Fired by {@link dev.overgrown.aspectslib.aether.CorruptionManager} as soon as the aether around a source changes,
+ * not when the source is next processed.
+ * </p>
+ */
+public interface VitiumDominanceCallback {
+    Event<VitiumDominanceCallback> EVENT = EventFactory.createArrayBacked(VitiumDominanceCallback.class,
+            listeners -> (world, sourcePos, dominant) -> {
+                for (VitiumDominanceCallback listener : listeners) {
+                    listener.onDominanceChanged(world, sourcePos, dominant);
+                }
+            });
+
+    /**
+     * @param world     The world of the corruption source
+     * @param sourcePos The position of the corruption source
+     * @param dominant  True if corruption started at the source, false if it stopped
+     */
+    void onDominanceChanged(ServerWorld world, BlockPos sourcePos, boolean dominant);
+}
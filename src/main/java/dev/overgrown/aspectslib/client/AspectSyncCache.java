@@ -0,0 +1,137 @@
+package dev.overgrown.aspectslib.client;
+
+import dev.overgrown.aspectslib.AspectsLib;
+import dev.overgrown.aspectslib.networking.SyncAspectIdentifierPacket;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.util.Util;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Client-side cache of aspect payloads received from servers.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ *     <li>Stores compressed aspect payloads keyed by their content hash</li>
+ *     <li>Provides cached payloads so servers can skip sending them again</li>
+ *     <li>Keeps at most {@link #MAX_ENTRIES} payloads, dropping the least recently used</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Used by {@link dev.overgrown.aspectslib.AspectsLibClient} when answering the aspect hash packet</li>
+ * <li>{@link #load} does blocking IO, call it from the IO worker rather than the network or client thread</li>
+ * </p>
+ * Files live in {@code .cache/aspectslib} of the game directory and are named after the payload hash. Payloads
+ * are verified against their hash when loaded, so a damaged file only causes a full resync.
+ */
+public class AspectSyncCache {
+
+    private static final int MAX_ENTRIES = 8;
+
+    private static Path getDirectory() {
+        return FabricLoader.getInstance().getGameDir().resolve(".cache").resolve(AspectsLib.MOD_ID);
+    }
+
+    private static Path getFile(long hash) {
+        return getDirectory().resolve(String.format("%016x.bin", hash));
+    }
+
+    /**
+     * Loads a cached payload. Blocks on disk IO and decompression.
+     *
+     * @param hash The content hash announced by the server.
+     * @return The uncompressed payload, or null if none is cached for this hash.
+     */
+    @Nullable
+    public static byte[] load(long hash) {
+        if (hash == 0) {
+            return null;
+        }
+
+        Path file = getFile(hash);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readLong() != hash) {
+                return null;
+            }
+            int length = in.readInt();
+            byte[] compressed = in.readAllBytes();
+            byte[] raw = SyncAspectIdentifierPacket.decompress(compressed, length);
+            if (!SyncAspectIdentifierPacket.matchesHash(raw, hash)) {
+                AspectsLib.LOGGER.warn("Discarding corrupted aspect cache file {}", file.getFileName());
+                Files.deleteIfExists(file);
+                return null;
+            }
+
+            // Mark as recently used for pruning
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return raw;
+        } catch (Exception e) {
+            AspectsLib.LOGGER.warn("Failed to read aspect cache file {}: {}", file.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores a payload on the IO worker, then prunes old entries.
+     *
+     * @param hash       The content hash of the uncompressed payload.
+     * @param length     The length of the uncompressed payload.
+     * @param compressed The compressed payload as received from the server.
+     */
+    public static void store(long hash, int length, byte[] compressed) {
+        Util.getIoWorkerExecutor().execute(() -> {
+            Path directory = getDirectory();
+            Path file = getFile(hash);
+            try {
+                Files.createDirectories(directory);
+                Path temp = Files.createTempFile(directory, "payload", ".tmp");
+                try (OutputStream stream = Files.newOutputStream(temp);
+                     DataOutputStream out = new DataOutputStream(stream)) {
+                    out.writeLong(hash);
+                    out.writeInt(length);
+                    out.write(compressed);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                prune(directory);
+            } catch (IOException e) {
+                AspectsLib.LOGGER.warn("Failed to write aspect cache file {}: {}", file.getFileName(), e.getMessage());
+            }
+        });
+    }
+
+    private static void prune(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(".bin"))
+                    .sorted(Comparator.comparing(AspectSyncCache::lastModified).reversed())
+                    .toList();
+        }
+        for (int i = MAX_ENTRIES; i < files.size(); i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -4,7 +4,6 @@ import dev.overgrown.aspectslib.data.Aspect;
 import dev.overgrown.aspectslib.data.AspectData;
 import dev.overgrown.aspectslib.data.ModRegistries;
 import com.mojang.blaze3d.systems.RenderSystem;
-import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.font.TextRenderer;
 import net.minecraft.client.gui.DrawContext;
@@ -45,14 +44,14 @@ public class AspectTooltipComponent implements TooltipComponent {
     public int getWidth(TextRenderer textRenderer) {
         boolean showNames = shouldShowNames();
         int width = 0;
-        for (Object2IntMap.Entry<Identifier> entry : aspectData.getMap().object2IntEntrySet()) {
-            Identifier aspectId = entry.getKey();
+        for (int i = 0; i < aspectData.getSize(); i++) {
+            Identifier aspectId = aspectData.getAspectId(i);
             Aspect aspect = ModRegistries.ASPECTS.get(aspectId);
             if (aspect == null) continue;
 
             int valueWidth = showNames ?
                     textRenderer.getWidth(aspect.getTranslatedName()) :
-                    textRenderer.getWidth(String.valueOf(entry.getIntValue()));
+                    textRenderer.getWidth(String.valueOf(aspectData.getAmount(i)));
             width += 16 + 2 + valueWidth + 4;
         }
         return width;
@@ -67,9 +66,9 @@ public class AspectTooltipComponent implements TooltipComponent {
         RenderSystem.setShader(GameRenderer::getPositionTexProgram);
         RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, 1.0F);
 
-        for (Object2IntMap.Entry<Identifier> entry : aspectData.getMap().object2IntEntrySet()) {
-            int value = entry.getIntValue();
-            Identifier aspectId = entry.getKey();
+        for (int i = 0; i < aspectData.getSize(); i++) {
+            int value = aspectData.getAmount(i);
+            Identifier aspectId = aspectData.getAspectId(i);
 
             Aspect aspect = ModRegistries.ASPECTS.get(aspectId);
             if (aspect == null) continue;
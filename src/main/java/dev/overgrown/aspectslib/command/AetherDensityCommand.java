@@ -12,11 +12,12 @@ import dev.overgrown.aspectslib.aether.DynamicAetherDensityManager;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.World;
+import net.minecraft.util.math.ChunkPos;
 
 import java.util.Map;
 
@@ -61,7 +62,7 @@ public class AetherDensityCommand {
         ServerCommandSource source = context.getSource();
         
         if (source.getEntity() instanceof ServerPlayerEntity player) {
-            World world = player.getWorld();
+            ServerWorld world = player.getServerWorld();
             BlockPos pos = player.getBlockPos();
 
             Identifier biomeId = world.getBiome(pos).getKey().orElseThrow().getValue();
@@ -70,7 +71,7 @@ public class AetherDensityCommand {
             
             AetherDensity density = AetherDensityManager.getDensity(world, pos);
 
-            Map<Identifier, Double> modifications = DynamicAetherDensityManager.getModifications(biomeId);
+            Map<Identifier, Double> modifications = DynamicAetherDensityManager.getModifications(world, pos);
 
             double vitium = density.getDensity(VITIUM_ASPECT);
             double totalOtherAspects = 0.0;
@@ -186,14 +187,14 @@ public class AetherDensityCommand {
         ServerCommandSource source = context.getSource();
 
         if (source.getEntity() instanceof ServerPlayerEntity player) {
-            World world = player.getWorld();
+            ServerWorld world = player.getServerWorld();
             BlockPos pos = player.getBlockPos();
             Identifier biomeId = world.getBiome(pos).getKey().orElseThrow().getValue();
 
-            DynamicAetherDensityManager.addModification(biomeId, VITIUM_ASPECT, amount);
+            DynamicAetherDensityManager.addModification(world, pos, VITIUM_ASPECT, amount);
 
-            CorruptionManager.addCorruptionSource(biomeId, pos, 5);
-            player.sendMessage(Text.literal("Added " + amount + " vitium corruption to biome: " + biomeId).formatted(Formatting.DARK_RED));
+            CorruptionManager.addCorruptionSource(world, pos, 5);
+            player.sendMessage(Text.literal("Added " + amount + " vitium corruption to chunk " + new ChunkPos(pos) + " in biome: " + biomeId).formatted(Formatting.DARK_RED));
             player.sendMessage(Text.literal("Use /" + AspectsLib.MOD_ID + ":aether_density report to see the current state").formatted(Formatting.GRAY));
 
             return 1;
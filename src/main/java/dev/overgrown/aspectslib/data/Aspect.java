@@ -9,12 +9,16 @@ import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * This is the Aspect class, which holds an instance of Aspect derived from files found in data/aspectslib/aspects/{json_file}.json
  * <p>
  * Properties:
  * <li>name: Display name</li>
  * <li>textureLocation: Custom texture path (optional)</li>
+ * <li>components: Identifiers of the aspects this aspect is composed of, empty for primal aspects (optional)</li>
  * </p>
  * <br>
  * <p>
@@ -25,16 +29,18 @@ import org.jetbrains.annotations.NotNull;
  *
  * @param name            This holds the name of the Aspect, as it should be rendered in displays.
  * @param textureLocation This holds the location of the texture, if the player wishes to override the default texture with one from a specific directory.
+ * @param components      This holds the identifiers of the aspects this aspect is composed of, see {@link AspectComposition}.
  */
-public record Aspect(String name, Identifier textureLocation) {
+public record Aspect(String name, Identifier textureLocation, List<Identifier> components) {
     /**
-     * This is the codec for encoding/decoding between Aspects and Json. it currently contains two fields,
-     * "name" and "texture location", for the two current data fields.
+     * This is the codec for encoding/decoding between Aspects and Json. it currently contains three fields,
+     * "name", "texture location" and "components", for the three current data fields.
      */
     public static final Codec<Aspect> CODEC = RecordCodecBuilder.create(
             instance -> instance.group(
                             Codec.STRING.fieldOf("name").forGetter(Aspect::name),
-                            Identifier.CODEC.optionalFieldOf("texture_location", new Identifier("aspectslib", "empty")).forGetter(Aspect::textureLocation)
+                            Identifier.CODEC.optionalFieldOf("texture_location", new Identifier("aspectslib", "empty")).forGetter(Aspect::textureLocation),
+                            Identifier.CODEC.listOf().optionalFieldOf("components", List.of()).forGetter(Aspect::components)
                     )
                     .apply(instance, Aspect::new)
     );
@@ -54,13 +60,22 @@ public record Aspect(String name, Identifier textureLocation) {
         public Aspect decode(PacketByteBuf buf) {
             String name = buf.readString();
             Identifier textureLocation = buf.readIdentifier();
-            return new Aspect(name, textureLocation);
+            int componentCount = buf.readVarInt();
+            List<Identifier> components = new ArrayList<>(componentCount);
+            for (int i = 0; i < componentCount; i++) {
+                components.add(buf.readIdentifier());
+            }
+            return new Aspect(name, textureLocation, components);
         }
 
         @Override
         public void encode(PacketByteBuf buf, Aspect value) {
             buf.writeString(value.name());
             buf.writeIdentifier(value.textureLocation());
+            buf.writeVarInt(value.components().size());
+            for (Identifier component : value.components()) {
+                buf.writeIdentifier(component);
+            }
         }
     };
 
@@ -69,8 +84,29 @@ public record Aspect(String name, Identifier textureLocation) {
      *
      * @param name            the name of the Aspect.
      * @param textureLocation the texture location used in rendering.
+     * @param components      the aspects this aspect is composed of.
      */
     public Aspect {
+        components = List.copyOf(components);
+    }
+
+    /**
+     * The constructor for a primal Aspect, which is not composed of other aspects.
+     *
+     * @param name            the name of the Aspect.
+     * @param textureLocation the texture location used in rendering.
+     */
+    public Aspect(String name, Identifier textureLocation) {
+        this(name, textureLocation, List.of());
+    }
+
+    /**
+     * Checks whether the Aspect is primal, i.e. declares no components.
+     *
+     * @return true if the Aspect has no components
+     */
+    public boolean isPrimal() {
+        return components.isEmpty();
     }
 
     /**
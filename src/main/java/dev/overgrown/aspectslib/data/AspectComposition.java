@@ -0,0 +1,316 @@
+package dev.overgrown.aspectslib.data;
+
+import dev.overgrown.aspectslib.AspectsLib;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Composition graph of the loaded aspects, compiled from the components declared in the aspect JSON files.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ * <li>Orders the loaded aspects topologically, components before the aspects they compose</li>
+ * <li>Rejects unknown components and composition cycles, treating the affected aspects as primal</li>
+ * <li>Precomputes for every aspect how many of each primal aspect it fully decomposes into</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Compiled by {@link AspectManager} on every reload, and on the client when aspects are synced</li>
+ * <li>Queried through {@link AspectData#decompose()} and the static accessors of this class</li>
+ * </p>
+ * Decomposition vectors are dense over the primal aspects, which are few, and indexed by aspect ordinal, so
+ * decomposing an {@link AspectData} is a single accumulation of one vector per entry. Primals are kept in
+ * ascending ordinal order, so the accumulated vector already is in the sorted layout of AspectData. The compiled
+ * graph is immutable and published with a single volatile write.
+ */
+public class AspectComposition {
+
+    private static volatile Graph graph = new Graph(new short[0], new int[0][], new int[0][], new int[0], new int[0]);
+
+    /**
+     * Compiles the composition graph of the given aspects, assigning ordinals to aspects that have none yet in
+     * topological order.
+     */
+    public static void compile(Map<Identifier, Aspect> aspects) {
+        List<Identifier> ids = new ArrayList<>(aspects.keySet());
+        Collections.sort(ids);
+        int count = ids.size();
+
+        Map<Identifier, Integer> indices = new HashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            indices.put(ids.get(i), i);
+        }
+
+        // Component indices per aspect, aspects with unknown components are treated as primal
+        int[][] edges = new int[count][];
+        for (int i = 0; i < count; i++) {
+            Identifier id = ids.get(i);
+            List<Identifier> components = aspects.get(id).components();
+            int[] resolved = new int[components.size()];
+            for (int c = 0; c < resolved.length; c++) {
+                Integer index = indices.get(components.get(c));
+                if (index == null) {
+                    AspectsLib.LOGGER.error("Aspect {} has unknown component {}, treating it as primal", id, components.get(c));
+                    resolved = new int[0];
+                    break;
+                }
+                resolved[c] = index;
+            }
+            edges[i] = resolved;
+        }
+
+        // Kahn's algorithm, ties broken by identifier so the order is stable between reloads
+        int[] pending = new int[count];
+        List<IntArrayList> dependents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            dependents.add(new IntArrayList());
+        }
+        for (int i = 0; i < count; i++) {
+            pending[i] = edges[i].length;
+            for (int component : edges[i]) {
+                dependents.get(component).add(i);
+            }
+        }
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < count; i++) {
+            if (pending[i] == 0) {
+                ready.add(i);
+            }
+        }
+        IntArrayList order = new IntArrayList(count);
+        while (order.size() < count) {
+            if (ready.isEmpty()) {
+                int breakAt = findCycle(edges, pending, ids);
+                edges[breakAt] = new int[0];
+                pending[breakAt] = 0;
+                ready.add(breakAt);
+            }
+            int index = ready.poll();
+            if (pending[index] < 0) {
+                continue;
+            }
+            pending[index] = -1;
+            order.add(index);
+            for (int dependent : dependents.get(index)) {
+                if (pending[dependent] > 0 && --pending[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        // Ordinals are append-only, so only aspects loaded for the first time follow the topological order
+        int[] ordinalOf = new int[count];
+        int[] orderedOrdinals = new int[count];
+        for (int i = 0; i < count; i++) {
+            int index = order.getInt(i);
+            ordinalOf[index] = AspectOrdinals.getOrCreate(ids.get(index));
+            orderedOrdinals[i] = ordinalOf[index];
+        }
+
+        IntArrayList primalList = new IntArrayList();
+        for (int i = 0; i < count; i++) {
+            if (edges[i].length == 0) {
+                primalList.add(ordinalOf[i]);
+            }
+        }
+        int[] sortedPrimals = primalList.toIntArray();
+        Arrays.sort(sortedPrimals);
+        short[] primals = new short[sortedPrimals.length];
+        for (int p = 0; p < primals.length; p++) {
+            primals[p] = (short) sortedPrimals[p];
+        }
+
+        int size = AspectOrdinals.size();
+        int[][] vectors = new int[size][];
+        int[][] components = new int[size][];
+        int[] tiers = new int[size];
+        for (int i = 0; i < count; i++) {
+            int index = order.getInt(i);
+            int ordinal = ordinalOf[index];
+            int[] vector = new int[primals.length];
+            int[] componentOrdinals = new int[edges[index].length];
+            int tier = 1;
+
+            if (edges[index].length == 0) {
+                vector[Arrays.binarySearch(sortedPrimals, ordinal)] = 1;
+            } else {
+                for (int c = 0; c < componentOrdinals.length; c++) {
+                    int componentOrdinal = ordinalOf[edges[index][c]];
+                    componentOrdinals[c] = componentOrdinal;
+                    // Components come first in topological order, so their vectors are already complete
+                    int[] componentVector = vectors[componentOrdinal];
+                    for (int p = 0; p < vector.length; p++) {
+                        vector[p] += componentVector[p];
+                    }
+                    tier = Math.max(tier, tiers[componentOrdinal] + 1);
+                }
+            }
+            vectors[ordinal] = vector;
+            components[ordinal] = componentOrdinals;
+            tiers[ordinal] = tier;
+        }
+
+        graph = new Graph(primals, vectors, components, tiers, orderedOrdinals);
+        AspectsLib.LOGGER.debug("Compiled aspect composition of {} aspects ({} primal)", count, primals.length);
+    }
+
+    /**
+     * Finds a composition cycle among the aspects that are still pending, once none of them is ready.
+     * <p>
+     * Every pending aspect has an unprocessed component, which is pending itself, so following those components
+     * from any pending aspect must revisit one. The aspects from the first revisited one on form the cycle, aspects
+     * before it are only downstream of it.
+     *
+     * @return The index of the cycle member to treat as primal, the one with the lowest identifier.
+     */
+    private static int findCycle(int[][] edges, int[] pending, List<Identifier> ids) {
+        int[] visitedAt = new int[pending.length];
+        Arrays.fill(visitedAt, -1);
+        IntArrayList path = new IntArrayList();
+
+        int current = 0;
+        while (pending[current] <= 0) {
+            current++;
+        }
+        while (visitedAt[current] < 0) {
+            visitedAt[current] = path.size();
+            path.add(current);
+            int next = -1;
+            for (int component : edges[current]) {
+                if (pending[component] > 0) {
+                    next = component;
+                    break;
+                }
+            }
+            current = next;
+        }
+
+        List<Identifier> members = new ArrayList<>();
+        int breakAt = current;
+        for (int i = visitedAt[current]; i < path.size(); i++) {
+            int member = path.getInt(i);
+            members.add(ids.get(member));
+            breakAt = Math.min(breakAt, member);
+        }
+        AspectsLib.LOGGER.error("Aspects {} form a composition cycle, treating {} as primal", members, ids.get(breakAt));
+        return breakAt;
+    }
+
+    /**
+     * Fully decomposes aspect data into primal aspects. Aspects that are not loaded are dropped.
+     */
+    public static AspectData decompose(AspectData data) {
+        Graph compiled = graph;
+        int primalCount = compiled.primals.length;
+        long[] sums = new long[primalCount];
+
+        for (int i = 0; i < data.getSize(); i++) {
+            int ordinal = data.getOrdinal(i);
+            int[] vector = ordinal < compiled.vectors.length ? compiled.vectors[ordinal] : null;
+            if (vector == null) {
+                continue;
+            }
+            long amount = data.getAmount(i);
+            for (int p = 0; p < primalCount; p++) {
+                sums[p] += amount * vector[p];
+            }
+        }
+
+        int nonZero = 0;
+        for (long sum : sums) {
+            if (sum != 0) {
+                nonZero++;
+            }
+        }
+        short[] ordinals = new short[nonZero];
+        int[] amounts = new int[nonZero];
+        int j = 0;
+        for (int p = 0; p < primalCount; p++) {
+            if (sums[p] != 0) {
+                ordinals[j] = compiled.primals[p];
+                amounts[j] = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, sums[p]));
+                j++;
+            }
+        }
+        return AspectData.ofSorted(ordinals, amounts).intern();
+    }
+
+    /**
+     * Checks whether an aspect is a loaded primal aspect.
+     */
+    public static boolean isPrimal(Identifier aspect) {
+        return getTier(aspect) == 1;
+    }
+
+    /**
+     * Gets the tier of an aspect: 1 for primal aspects, otherwise one more than the highest tier of its components.
+     *
+     * @return The tier, or 0 if the aspect is not loaded.
+     */
+    public static int getTier(Identifier aspect) {
+        Graph compiled = graph;
+        int ordinal = AspectOrdinals.get(aspect);
+        return ordinal >= 0 && ordinal < compiled.tiers.length ? compiled.tiers[ordinal] : 0;
+    }
+
+    /**
+     * Gets the direct components of an aspect.
+     *
+     * @return The components, empty for primal aspects and aspects that are not loaded.
+     */
+    public static List<Identifier> getComponents(Identifier aspect) {
+        Graph compiled = graph;
+        int ordinal = AspectOrdinals.get(aspect);
+        if (ordinal < 0 || ordinal >= compiled.components.length || compiled.components[ordinal] == null) {
+            return List.of();
+        }
+        List<Identifier> components = new ArrayList<>(compiled.components[ordinal].length);
+        for (int component : compiled.components[ordinal]) {
+            components.add(AspectOrdinals.byOrdinal(component));
+        }
+        return components;
+    }
+
+    /**
+     * Gets the primal aspects, in ordinal order.
+     */
+    public static List<Identifier> getPrimals() {
+        Graph compiled = graph;
+        List<Identifier> primals = new ArrayList<>(compiled.primals.length);
+        for (short primal : compiled.primals) {
+            primals.add(AspectOrdinals.byOrdinal(primal));
+        }
+        return primals;
+    }
+
+    /**
+     * Gets the loaded aspects in topological order, every aspect after all of its components.
+     */
+    public static List<Identifier> getOrder() {
+        Graph compiled = graph;
+        List<Identifier> order = new ArrayList<>(compiled.order.length);
+        for (int ordinal : compiled.order) {
+            order.add(AspectOrdinals.byOrdinal(ordinal));
+        }
+        return order;
+    }
+
+    /**
+     * @param primals    Ordinals of the primal aspects, ascending.
+     * @param vectors    Primal amounts per aspect ordinal, null for ordinals that are not loaded aspects.
+     * @param components Direct component ordinals per aspect ordinal.
+     * @param tiers      Tier per aspect ordinal, 0 for ordinals that are not loaded aspects.
+     * @param order      Loaded aspect ordinals in topological order.
+     */
+    private record Graph(short[] primals, int[][] vectors, int[][] components, int[] tiers, int[] order) {
+    }
+}
@@ -3,8 +3,12 @@ package dev.overgrown.aspectslib.data;
 import dev.overgrown.aspectslib.AspectsLib;
 import dev.overgrown.aspectslib.api.IAspectDataProvider;
 import dev.overgrown.aspectslib.codec.CodecUtils;
+import dev.overgrown.aspectslib.networking.AspectPalette;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import dev.overgrown.aspectslib.resonance.ResonanceCache;
 import dev.overgrown.aspectslib.resonance.ResonanceCalculator;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
@@ -12,15 +16,24 @@ import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.nbt.NbtOps;
 import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
 
+import it.unimi.dsi.fastutil.objects.ObjectArraySet;
+
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 /**
- * The `AspectData` class is the container for aspect amounts associated with an item and manages the association between items and their aspects. It stores the levels of aspects and provides functionality for NBT serialization, network synchronization, and manipulation. Now uses direct Identifier->int mapping instead of registry entries.
+ * The `AspectData` class is the container for aspect amounts associated with an item and manages the association between items and their aspects. It stores the levels of aspects and provides functionality for NBT serialization, network synchronization, and manipulation. Aspects are stored as a pair of arrays sorted by aspect ordinal (see {@link AspectOrdinals}) instead of a hash map.
+ * <p>
+ * Instances are immutable: {@link #addAspect(AspectData)} and {@link Builder} produce new instances, so AspectData
+ * can be shared freely between stacks, entities and registries. {@link #intern()} returns a canonical instance for
+ * each composition, so that e.g. every diamond shares a single AspectData.
+ * </p>
  * <p>
  * Features:
  * <li>NBT serialization</li>
@@ -35,8 +48,11 @@ import java.util.function.Predicate;
  */
 public class AspectData {
 
+    // Pool of canonical instances, entries are dropped once no stack, entity or registry references them
+    private static final Interner<AspectData> INTERNER = Interners.newWeakInterner();
+
     // Default instance with no aspects
-    public static final AspectData DEFAULT = new AspectData(new Object2IntOpenHashMap<>());
+    public static final AspectData DEFAULT = new AspectData(new short[0], new int[0]).intern();
 
     // Codec for serialization and deserialization
     private static Codec<Object2IntOpenHashMap<Identifier>> getInlineCodec() {
@@ -47,22 +63,76 @@ public class AspectData {
     private static Codec<AspectData> getBaseCodec() {
         return RecordCodecBuilder.create(instance ->
                 instance.group(
-                        getInlineCodec().fieldOf("aspects").forGetter(component -> component.aspects)
+                        getInlineCodec().fieldOf("aspects").forGetter(AspectData::getMap)
                 ).apply(instance, AspectData::new)
         );
     }
 
     public static final Codec<AspectData> CODEC = CodecUtils.withAlternative(
             CodecUtils.lazy(AspectData::getBaseCodec),
-            getInlineCodec().xmap(AspectData::new, data -> data.aspects)
+            getInlineCodec().xmap(AspectData::new, AspectData::getMap)
     );
 
-    // Internal storage for aspects and their levels - now uses Identifier instead of RegistryEntry
-    private final Object2IntOpenHashMap<Identifier> aspects;
+    // Internal storage for aspects and their levels - aspect ordinals in ascending order, with the level at the same index
+    private final short[] ordinals;
+    private final int[] amounts;
+    private final int hash;
 
     // Constructor
     public AspectData(Object2IntOpenHashMap<Identifier> aspects) {
-        this.aspects = aspects;
+        int size = aspects.size();
+        short[] ordinals = new short[size];
+        int[] amounts = new int[size];
+        int i = 0;
+        for (Object2IntMap.Entry<Identifier> entry : aspects.object2IntEntrySet()) {
+            // Aspects that are not loaded have no ordinal and are dropped
+            int ordinal = AspectOrdinals.get(entry.getKey());
+            if (ordinal >= 0) {
+                ordinals[i] = (short) ordinal;
+                amounts[i] = entry.getIntValue();
+                i++;
+            }
+        }
+        if (i < size) {
+            ordinals = Arrays.copyOf(ordinals, i);
+            amounts = Arrays.copyOf(amounts, i);
+        }
+        sortByOrdinal(ordinals, amounts);
+        this.ordinals = ordinals;
+        this.amounts = amounts;
+        this.hash = computeHash(ordinals, amounts);
+    }
+
+    // Trusted constructor, the arrays must already be sorted by ordinal and must not be modified afterwards
+    private AspectData(short[] ordinals, int[] amounts) {
+        this.ordinals = ordinals;
+        this.amounts = amounts;
+        this.hash = computeHash(ordinals, amounts);
+    }
+
+    // Trusted factory for the data package, see the trusted constructor
+    static AspectData ofSorted(short[] ordinals, int[] amounts) {
+        return new AspectData(ordinals, amounts);
+    }
+
+    private static int computeHash(short[] ordinals, int[] amounts) {
+        return 31 * Arrays.hashCode(ordinals) + Arrays.hashCode(amounts);
+    }
+
+    // Insertion sort, aspect data rarely holds more than a handful of entries
+    private static void sortByOrdinal(short[] ordinals, int[] amounts) {
+        for (int i = 1; i < ordinals.length; i++) {
+            short ordinal = ordinals[i];
+            int amount = amounts[i];
+            int j = i - 1;
+            while (j >= 0 && ordinals[j] > ordinal) {
+                ordinals[j + 1] = ordinals[j];
+                amounts[j + 1] = amounts[j];
+                j--;
+            }
+            ordinals[j + 1] = ordinal;
+            amounts[j + 1] = amount;
+        }
     }
 
     /**
@@ -72,7 +142,19 @@ public class AspectData {
      * @return The level of the aspect, or 0 if not present.
      */
     public int getLevel(Identifier aspectId) {
-        return this.aspects.getInt(aspectId);
+        int ordinal = AspectOrdinals.get(aspectId);
+        return ordinal >= 0 ? getLevelByOrdinal(ordinal) : 0;
+    }
+
+    /**
+     * Gets the level of the specified aspect by ordinal.
+     *
+     * @param ordinal The aspect ordinal to query.
+     * @return The level of the aspect, or 0 if not present.
+     */
+    public int getLevelByOrdinal(int ordinal) {
+        int index = Arrays.binarySearch(this.ordinals, (short) ordinal);
+        return index >= 0 ? this.amounts[index] : 0;
     }
 
     /**
@@ -83,7 +165,7 @@ public class AspectData {
      */
     public int getLevelByName(String aspectName) {
         Identifier aspectId = AspectManager.NAME_TO_ID.get(aspectName);
-        return aspectId != null ? this.aspects.getInt(aspectId) : 0;
+        return aspectId != null ? getLevel(aspectId) : 0;
     }
 
     /**
@@ -92,16 +174,26 @@ public class AspectData {
      * @return An unmodifiable set of aspect identifiers.
      */
     public Set<Identifier> getAspectIds() {
-        return Collections.unmodifiableSet(this.aspects.keySet());
+        Identifier[] ids = new Identifier[this.ordinals.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = AspectOrdinals.byOrdinal(this.ordinals[i]);
+        }
+        return Collections.unmodifiableSet(new ObjectArraySet<>(ids));
     }
 
     /**
-     * Gets the aspect map with their levels.
+     * Gets the aspect map with their levels. The map is built on each call, changes to it are not reflected in
+     * this AspectData. Prefer the index accessors ({@link #getSize()}, {@link #getOrdinal(int)},
+     * {@link #getAmount(int)}) in hot code.
      *
      * @return A map of aspect identifiers to their levels.
      */
     public Object2IntOpenHashMap<Identifier> getMap() {
-        return this.aspects;
+        Object2IntOpenHashMap<Identifier> map = new Object2IntOpenHashMap<>(this.ordinals.length);
+        for (int i = 0; i < this.ordinals.length; i++) {
+            map.put(AspectOrdinals.byOrdinal(this.ordinals[i]), this.amounts[i]);
+        }
+        return map;
     }
 
     /**
@@ -110,7 +202,38 @@ public class AspectData {
      * @return The number of aspects.
      */
     public int getSize() {
-        return this.aspects.size();
+        return this.ordinals.length;
+    }
+
+    /**
+     * Gets the ordinal of the aspect stored at an index. Indices run from 0 to {@link #getSize()} - 1, in
+     * ascending ordinal order.
+     *
+     * @param index The index of the entry.
+     * @return The aspect ordinal.
+     */
+    public int getOrdinal(int index) {
+        return this.ordinals[index];
+    }
+
+    /**
+     * Gets the identifier of the aspect stored at an index.
+     *
+     * @param index The index of the entry.
+     * @return The aspect identifier.
+     */
+    public Identifier getAspectId(int index) {
+        return AspectOrdinals.byOrdinal(this.ordinals[index]);
+    }
+
+    /**
+     * Gets the level stored at an index.
+     *
+     * @param index The index of the entry.
+     * @return The aspect level.
+     */
+    public int getAmount(int index) {
+        return this.amounts[index];
     }
 
     /**
@@ -119,79 +242,219 @@ public class AspectData {
      * @return `true` if no aspects are registered, otherwise `false`.
      */
     public boolean isEmpty() {
-        return this.aspects.isEmpty();
+        return this.ordinals.length == 0;
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o instanceof AspectData other) {
-            return this.aspects.equals(other.aspects);
+            return this.hash == other.hash && Arrays.equals(this.ordinals, other.ordinals) && Arrays.equals(this.amounts, other.amounts);
         }
         return false;
     }
 
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
     @Override
     public String toString() {
-        return "AspectData{aspects=" + this.aspects + "}";
+        return "AspectData{aspects=" + getMap() + "}";
     }
 
     /**
-     * Adds aspects from another AspectData to this one.
+     * Returns the canonical instance for this composition.
+     *
+     * @return The pooled AspectData equal to this one.
+     */
+    public AspectData intern() {
+        return INTERNER.intern(this);
+    }
+
+    /**
+     * Adds aspects from another AspectData to the ones of this AspectData.
+     *
+     * @return A new AspectData holding the summed levels. This instance is left unchanged.
      */
     public AspectData addAspect(AspectData aspectData) {
-        for (Object2IntMap.Entry<Identifier> aspectIntegerEntry : aspectData.aspects.object2IntEntrySet()) {
-            this.aspects.put(aspectIntegerEntry.getKey(), this.aspects.getOrDefault(aspectIntegerEntry.getKey(), 0) + aspectIntegerEntry.getIntValue());
+        if (aspectData.isEmpty()) {
+            return this;
+        }
+        if (this.isEmpty()) {
+            return aspectData;
+        }
+
+        short[] otherOrdinals = aspectData.ordinals;
+        int[] otherAmounts = aspectData.amounts;
+        short[] mergedOrdinals = new short[this.ordinals.length + otherOrdinals.length];
+        int[] mergedAmounts = new int[mergedOrdinals.length];
+
+        // Merge the two sorted arrays, summing levels of aspects present in both
+        int i = 0, j = 0, size = 0;
+        while (i < this.ordinals.length || j < otherOrdinals.length) {
+            if (j >= otherOrdinals.length || (i < this.ordinals.length && this.ordinals[i] < otherOrdinals[j])) {
+                mergedOrdinals[size] = this.ordinals[i];
+                mergedAmounts[size++] = this.amounts[i++];
+            } else if (i >= this.ordinals.length || otherOrdinals[j] < this.ordinals[i]) {
+                mergedOrdinals[size] = otherOrdinals[j];
+                mergedAmounts[size++] = otherAmounts[j++];
+            } else {
+                mergedOrdinals[size] = this.ordinals[i];
+                mergedAmounts[size++] = this.amounts[i++] + otherAmounts[j++];
+            }
         }
-        return this;
+
+        return new AspectData(Arrays.copyOf(mergedOrdinals, size), Arrays.copyOf(mergedAmounts, size));
     }
 
     /**
-     * Writes this AspectData to NBT
+     * Writes this AspectData to NBT. Produces the same layout as {@link #CODEC} with {@link NbtOps}, written
+     * directly to skip the codec machinery:
+     * <pre>{@code
+     * {AspectData: {aspects: {"aspectslib:terra": 10, ...}}}
+     * }</pre>
      */
     public NbtCompound toNbt() {
+        NbtCompound aspects = new NbtCompound();
+        for (int i = 0; i < ordinals.length; i++) {
+            aspects.putInt(AspectOrdinals.nameOf(ordinals[i]), amounts[i]);
+        }
+        NbtCompound data = new NbtCompound();
+        data.put("aspects", aspects);
         NbtCompound nbt = new NbtCompound();
-        CODEC.encodeStart(NbtOps.INSTANCE, this)
-                .resultOrPartial(AspectsLib.LOGGER::error)
-                .ifPresent(element -> nbt.put("AspectData", element));
+        nbt.put("AspectData", data);
         return nbt;
     }
 
     /**
-     * Reads AspectData from NBT
+     * Reads AspectData from NBT. The layout written by {@link #toNbt()} is read directly, other shapes (such as the
+     * legacy inline map) fall back to {@link #CODEC}.
      */
     public static AspectData fromNbt(NbtCompound nbt) {
         if (nbt.contains("AspectData", NbtElement.COMPOUND_TYPE)) {
-            return CODEC.parse(NbtOps.INSTANCE, nbt.get("AspectData"))
+            NbtCompound data = nbt.getCompound("AspectData");
+            if (data.contains("aspects", NbtElement.COMPOUND_TYPE)) {
+                AspectData aspectData = readAspects(data.getCompound("aspects"));
+                if (aspectData != null) {
+                    return aspectData;
+                }
+            }
+            return CODEC.parse(NbtOps.INSTANCE, data)
                     .resultOrPartial(AspectsLib.LOGGER::error)
+                    .map(AspectData::intern)
                     .orElse(DEFAULT);
         }
         return DEFAULT;
     }
 
+    // Direct reader for the "aspects" compound, returns null if the compound needs the codec to report errors
+    private static AspectData readAspects(NbtCompound aspects) {
+        int size = aspects.getSize();
+        if (size == 0) {
+            return DEFAULT;
+        }
+
+        short[] ordinals = new short[size];
+        int[] amounts = new int[size];
+        int i = 0;
+        for (String key : aspects.getKeys()) {
+            if (!aspects.contains(key, NbtElement.NUMBER_TYPE)) {
+                return null;
+            }
+            // Aspects that are not loaded have no ordinal and are dropped
+            int ordinal = AspectOrdinals.get(key);
+            if (ordinal >= 0) {
+                ordinals[i] = (short) ordinal;
+                amounts[i] = aspects.getInt(key);
+                i++;
+            }
+        }
+        if (i < size) {
+            ordinals = Arrays.copyOf(ordinals, i);
+            amounts = Arrays.copyOf(amounts, i);
+        }
+
+        sortByOrdinal(ordinals, amounts);
+        for (int j = 1; j < ordinals.length; j++) {
+            // Two spellings of the same identifier, e.g. "terra" and "minecraft:terra"
+            if (ordinals[j] == ordinals[j - 1]) {
+                return null;
+            }
+        }
+        return new AspectData(ordinals, amounts).intern();
+    }
+
     /**
-     * Writes this AspectData to a packet buffer for network sync
+     * Writes this AspectData to a packet buffer, each entry as an identifier plus a VarInt amount. Read it with
+     * {@link #fromPacket}.
+     *
+     * @deprecated Use {@link #toPacket(PacketByteBuf, ServerPlayerEntity)}, which writes palette ordinals the
+     * receiving player knows instead of identifiers.
      */
+    @Deprecated
     public void toPacket(PacketByteBuf buf) {
-        buf.writeVarInt(aspects.size());
-        for (Object2IntMap.Entry<Identifier> entry : aspects.object2IntEntrySet()) {
-            buf.writeIdentifier(entry.getKey());
-            buf.writeVarInt(entry.getIntValue());
+        buf.writeVarInt(ordinals.length);
+        for (int i = 0; i < ordinals.length; i++) {
+            buf.writeString(AspectOrdinals.nameOf(ordinals[i]));
+            buf.writeVarInt(amounts[i]);
+        }
+    }
+
+    /**
+     * Writes this AspectData to a packet buffer for a player. Each entry is a VarInt palette key plus a VarInt
+     * amount, see {@link AspectPalette} for when the identifier string is written instead. Read it with
+     * {@link #fromPalettePacket}.
+     *
+     * @param player The player the packet is sent to, whose palette decides which keys are ordinals.
+     */
+    public void toPacket(PacketByteBuf buf, ServerPlayerEntity player) {
+        int paletteSize = AspectPalette.getSentSize(player);
+        buf.writeVarInt(ordinals.length);
+        for (int i = 0; i < ordinals.length; i++) {
+            AspectPalette.writeKey(buf, ordinals[i], paletteSize);
+            buf.writeVarInt(amounts[i]);
         }
     }
 
     /**
-     * Reads AspectData from a packet buffer
+     * Reads AspectData written by {@link #toPacket(PacketByteBuf)}. Aspects that are not loaded are dropped.
+     *
+     * @deprecated Use {@link #fromPalettePacket} along with {@link #toPacket(PacketByteBuf, ServerPlayerEntity)}.
      */
+    @Deprecated
     public static AspectData fromPacket(PacketByteBuf buf) {
+        return readPacket(buf, false);
+    }
+
+    /**
+     * Reads AspectData written by {@link #toPacket(PacketByteBuf, ServerPlayerEntity)}. Aspects that are not loaded
+     * are dropped.
+     */
+    public static AspectData fromPalettePacket(PacketByteBuf buf) {
+        return readPacket(buf, true);
+    }
+
+    private static AspectData readPacket(PacketByteBuf buf, boolean paletteKeys) {
         int size = buf.readVarInt();
-        Object2IntOpenHashMap<Identifier> aspects = new Object2IntOpenHashMap<>();
+        short[] ordinals = new short[size];
+        int[] amounts = new int[size];
+        int count = 0;
         for (int i = 0; i < size; i++) {
-            Identifier aspectId = buf.readIdentifier();
+            int ordinal = paletteKeys ? AspectPalette.readKey(buf) : AspectOrdinals.get(buf.readIdentifier());
             int amount = buf.readVarInt();
-            aspects.put(aspectId, amount);
+            if (ordinal >= 0) {
+                ordinals[count] = (short) ordinal;
+                amounts[count++] = amount;
+            }
         }
-        return new AspectData(aspects);
+        if (count < size) {
+            ordinals = Arrays.copyOf(ordinals, count);
+            amounts = Arrays.copyOf(amounts, count);
+        }
+        sortByOrdinal(ordinals, amounts);
+        return new AspectData(ordinals, amounts).intern();
     }
 
     /**
@@ -201,7 +464,9 @@ public class AspectData {
         private final Object2IntOpenHashMap<Identifier> aspects = new Object2IntOpenHashMap<>();
 
         public Builder(AspectData data) {
-            this.aspects.putAll(data.aspects);
+            for (int i = 0; i < data.ordinals.length; i++) {
+                this.aspects.put(AspectOrdinals.byOrdinal(data.ordinals[i]), data.amounts[i]);
+            }
         }
 
         /**
@@ -271,7 +536,7 @@ public class AspectData {
          * @return The constructed `AspectData`.
          */
         public AspectData build() {
-            return new AspectData(this.aspects);
+            return new AspectData(this.aspects).intern();
         }
     }
 
@@ -280,14 +545,23 @@ public class AspectData {
      */
     public double calculateTotalRU() {
         double total = 0;
-        for (Object2IntMap.Entry<Identifier> entry : aspects.object2IntEntrySet()) {
-            total += entry.getIntValue();
+        for (int amount : amounts) {
+            total += amount;
         }
         return total;
     }
 
-    // Add resonance calculation
+    // Add resonance calculation, cached per composition
     public ResonanceCalculator.ResonanceResult calculateResonance() {
-        return ResonanceCalculator.calculate(this);
+        return ResonanceCache.get(this);
+    }
+
+    /**
+     * Fully decomposes the aspects into primal aspects, see {@link AspectComposition}.
+     *
+     * @return The primal aspects and their amounts.
+     */
+    public AspectData decompose() {
+        return AspectComposition.decompose(this);
     }
 }
\ No newline at end of file
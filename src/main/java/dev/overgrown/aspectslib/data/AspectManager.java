@@ -3,6 +3,7 @@ package dev.overgrown.aspectslib.data;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import dev.overgrown.aspectslib.AspectsLib;
+import dev.overgrown.aspectslib.networking.SyncAspectIdentifierPacket;
 import com.mojang.serialization.JsonOps;
 import net.fabricmc.fabric.api.resource.IdentifiableResourceReloadListener;
 import net.minecraft.resource.JsonDataLoader;
@@ -22,6 +23,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <ol type="1">
  * <li>Loads aspect JSON files from data/aspectslib/aspects</li>
  * <li>Populates ModRegistries.ASPECTS</li>
+ * <li>Assigns each loaded aspect an ordinal in {@link AspectOrdinals} and compiles the {@link AspectComposition}</li>
  * </ol>
  * </p>
  * File format example (data/aspectslib/aspects/terra.json):
@@ -31,6 +33,13 @@ import java.util.concurrent.atomic.AtomicInteger;
  *   "texture_location": "aspectslib:textures/aspects_icons/terra.png"
  * }
  * }</pre>
+ * Compound aspects list the aspects they are made of (data/aspectslib/aspects/lux.json):
+ * <pre>{@code
+ * {
+ *   "name": "Lux",
+ *   "components": ["aspectslib:aer", "aspectslib:ignis"]
+ * }
+ * }</pre>
  */
 public class AspectManager extends JsonDataLoader implements IdentifiableResourceReloadListener {
 
@@ -74,7 +83,13 @@ public class AspectManager extends JsonDataLoader implements IdentifiableResourc
                     });
         }
 
-        AspectsLib.LOGGER.info("Loaded {} aspects from datapacks", loadedCount);
+        // Assign compact ordinals in composition order, loaded aspects keep the ordinal they got on first load
+        AspectComposition.compile(ModRegistries.ASPECTS);
+
+        // The synced payload is rebuilt from the new aspects on the next join
+        SyncAspectIdentifierPacket.invalidatePayload();
+
+        AspectsLib.LOGGER.info("Loaded {} aspects from datapacks ({} aspect ordinals assigned)", loadedCount, AspectOrdinals.size());
     }
 
     @Override
@@ -0,0 +1,144 @@
+package dev.overgrown.aspectslib.data;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.util.Identifier;
+
+import java.util.Arrays;
+
+/**
+ * Assigns compact integer ordinals to aspect identifiers.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ * <li>Maps aspect Identifiers to dense ordinals and back</li>
+ * <li>Keeps ordinals stable for the lifetime of the game instance</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Loaded aspects are assigned by {@link AspectManager}, and on clients by the server's palette</li>
+ * <li>Used by {@link AspectData} as the key of its array-backed storage</li>
+ * </p>
+ * Ordinals are only ever appended, never reassigned, so {@link AspectData} created before a reload stays valid
+ * after it. Only aspects that are or were loaded get an ordinal: identifiers read from NBT, packets or other data
+ * are resolved with {@link #get} and dropped if unknown, so untrusted input can never grow the table. Lookups read
+ * an immutable snapshot and never lock; appends copy the table under a lock.
+ */
+public class AspectOrdinals {
+
+    /**
+     * Ordinals are stored as shorts by {@link AspectData}.
+     */
+    public static final int MAX_ORDINALS = Short.MAX_VALUE + 1;
+
+    private static volatile Table table = new Table(newLookup(), newLookup(), new Identifier[0], new String[0]);
+
+    /**
+     * Gets the ordinal of an aspect identifier.
+     *
+     * @param id The aspect identifier.
+     * @return The ordinal, or -1 if the identifier has not been assigned one.
+     */
+    public static int get(Identifier id) {
+        return table.ordinals.getInt(id);
+    }
+
+    /**
+     * Gets the ordinal of an aspect identifier in string form. Strings in the canonical {@code namespace:path} form
+     * are resolved without parsing an Identifier.
+     *
+     * @param id The aspect identifier string.
+     * @return The ordinal, or -1 if the string is not a valid identifier or has not been assigned one.
+     */
+    public static int get(String id) {
+        int ordinal = table.names.getInt(id);
+        if (ordinal >= 0) {
+            return ordinal;
+        }
+        Identifier parsed = Identifier.tryParse(id);
+        return parsed != null ? get(parsed) : -1;
+    }
+
+    /**
+     * Gets the ordinal of an aspect identifier, assigning the next free ordinal if it has none yet. Only for
+     * identifiers of loaded aspects; anything read from untrusted input must go through {@link #get} instead.
+     *
+     * @param id The aspect identifier.
+     * @return The ordinal of the identifier.
+     */
+    public static int getOrCreate(Identifier id) {
+        int ordinal = get(id);
+        return ordinal >= 0 ? ordinal : assign(id);
+    }
+
+    /**
+     * Gets the aspect identifier for an ordinal.
+     *
+     * @param ordinal The ordinal to look up.
+     * @return The identifier assigned to the ordinal.
+     * @throws IndexOutOfBoundsException If the ordinal has not been assigned.
+     */
+    public static Identifier byOrdinal(int ordinal) {
+        return table.identifiers[ordinal];
+    }
+
+    /**
+     * Gets the string form of the aspect identifier for an ordinal, without allocating.
+     *
+     * @param ordinal The ordinal to look up.
+     * @return The identifier string assigned to the ordinal.
+     * @throws IndexOutOfBoundsException If the ordinal has not been assigned.
+     */
+    public static String nameOf(int ordinal) {
+        return table.strings[ordinal];
+    }
+
+    /**
+     * Gets the number of assigned ordinals. Every ordinal is lower than this value.
+     *
+     * @return The number of assigned ordinals.
+     */
+    public static int size() {
+        return table.identifiers.length;
+    }
+
+    private static synchronized int assign(Identifier id) {
+        Table current = table;
+        int ordinal = current.ordinals.getInt(id);
+        if (ordinal >= 0) {
+            return ordinal;
+        }
+
+        ordinal = current.identifiers.length;
+        if (ordinal >= MAX_ORDINALS) {
+            throw new IllegalStateException("Too many aspect identifiers, could not assign an ordinal to " + id);
+        }
+
+        String name = id.toString();
+        Object2IntOpenHashMap<Identifier> ordinals = newLookup();
+        ordinals.putAll(current.ordinals);
+        ordinals.put(id, ordinal);
+        Object2IntOpenHashMap<String> names = newLookup();
+        names.putAll(current.names);
+        names.put(name, ordinal);
+        Identifier[] identifiers = Arrays.copyOf(current.identifiers, ordinal + 1);
+        identifiers[ordinal] = id;
+        String[] strings = Arrays.copyOf(current.strings, ordinal + 1);
+        strings[ordinal] = name;
+
+        table = new Table(ordinals, names, identifiers, strings);
+        return ordinal;
+    }
+
+    private static <K> Object2IntOpenHashMap<K> newLookup() {
+        Object2IntOpenHashMap<K> ordinals = new Object2IntOpenHashMap<>();
+        ordinals.defaultReturnValue(-1);
+        return ordinals;
+    }
+
+    /**
+     * Immutable snapshot of the ordinal table.
+     */
+    private record Table(Object2IntOpenHashMap<Identifier> ordinals, Object2IntOpenHashMap<String> names,
+                         Identifier[] identifiers, String[] strings) {}
+}
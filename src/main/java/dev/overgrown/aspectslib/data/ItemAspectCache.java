@@ -0,0 +1,133 @@
+package dev.overgrown.aspectslib.data;
+
+import dev.overgrown.aspectslib.AspectsLib;
+import dev.overgrown.aspectslib.mixin.ItemStackMixin;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMaps;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.util.Identifier;
+
+import java.util.Map;
+
+/**
+ * Per-item index of the default aspects resolved from {@link ItemAspectRegistry}.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ * <li>Resolves direct and tag-based registry entries to concrete items once per reload</li>
+ * <li>Provides a single lookup for stack initialization</li>
+ * <li>Falls back to the aspects inferred from recipes by {@link RecipeAspectInference}</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Rebuilt when tags are bound (see {@link AspectsLib})</li>
+ * <li>Accessed by {@link ItemStackMixin} during aspect initialization</li>
+ * </p>
+ * The index is built into a fresh map and published with a single volatile write, so readers never observe a
+ * partially built index. Changes to {@link ItemAspectRegistry} outside a reload only mark the index as stale;
+ * it is then rebuilt on the next lookup. Inferred aspects are published the same way as a separate index, and
+ * explicit aspects always take precedence over them.
+ */
+public class ItemAspectCache {
+
+    /**
+     * The currently published index. Never mutated after publication.
+     */
+    private static volatile Reference2ObjectMap<Item, AspectData> itemToAspect = Reference2ObjectMaps.emptyMap();
+
+    /**
+     * The currently published aspects inferred from recipes. Never mutated after publication.
+     */
+    private static volatile Reference2ObjectMap<Item, AspectData> inferred = Reference2ObjectMaps.emptyMap();
+
+    /**
+     * Set when {@link ItemAspectRegistry} changed after the last rebuild.
+     */
+    private static volatile boolean stale = false;
+
+    /**
+     * Retrieves the resolved default `AspectData` for an item.
+     *
+     * @param item The item to look up.
+     * @return The shared resolved `AspectData`, or DEFAULT if the item has no default aspects.
+     */
+    public static AspectData get(Item item) {
+        if (stale) {
+            rebuild();
+        }
+        AspectData aspectData = itemToAspect.get(item);
+        return aspectData != null ? aspectData : inferred.getOrDefault(item, AspectData.DEFAULT);
+    }
+
+    /**
+     * Gets the index of explicitly registered aspects, without inferred ones.
+     */
+    static Reference2ObjectMap<Item, AspectData> getExplicit() {
+        if (stale) {
+            rebuild();
+        }
+        return itemToAspect;
+    }
+
+    /**
+     * Replaces the aspects inferred from recipes.
+     *
+     * @param aspects An immutable map of inferred aspects per item.
+     */
+    static void publishInferred(Reference2ObjectMap<Item, AspectData> aspects) {
+        inferred = aspects;
+    }
+
+    /**
+     * Marks the index as stale, so it is rebuilt before the next lookup.
+     */
+    public static void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Resolves every entry of {@link ItemAspectRegistry} against the item registry and its currently bound tags,
+     * then publishes the result.
+     */
+    public static synchronized void rebuild() {
+        stale = false;
+        Reference2ObjectOpenHashMap<Item, Object2IntOpenHashMap<Identifier>> resolved = new Reference2ObjectOpenHashMap<>();
+
+        for (Map.Entry<Identifier, AspectData> entry : ItemAspectRegistry.entries()) {
+            Identifier id = entry.getKey();
+            AspectData aspectData = entry.getValue();
+
+            // Direct item registration
+            if (Registries.ITEM.containsId(id)) {
+                merge(resolved, Registries.ITEM.get(id), aspectData);
+            }
+
+            // Tag-based registration
+            Registries.ITEM.getEntryList(TagKey.of(RegistryKeys.ITEM, id)).ifPresent(entries -> {
+                for (RegistryEntry<Item> itemEntry : entries) {
+                    merge(resolved, itemEntry.value(), aspectData);
+                }
+            });
+        }
+
+        Reference2ObjectOpenHashMap<Item, AspectData> index = new Reference2ObjectOpenHashMap<>(resolved.size());
+        resolved.forEach((item, aspects) -> index.put(item, new AspectData(aspects).intern()));
+        itemToAspect = Reference2ObjectMaps.unmodifiable(index);
+
+        AspectsLib.LOGGER.debug("Resolved default aspects for {} items from {} registry entries", index.size(), ItemAspectRegistry.size());
+    }
+
+    private static void merge(Map<Item, Object2IntOpenHashMap<Identifier>> resolved, Item item, AspectData aspectData) {
+        Object2IntOpenHashMap<Identifier> aspects = resolved.computeIfAbsent(item, k -> new Object2IntOpenHashMap<>());
+        for (int i = 0; i < aspectData.getSize(); i++) {
+            aspects.addTo(aspectData.getAspectId(i), aspectData.getAmount(i));
+        }
+    }
+}
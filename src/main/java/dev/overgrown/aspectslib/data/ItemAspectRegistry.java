@@ -18,7 +18,7 @@ import java.util.stream.Stream;
  * <p>
  * Usage:
  * <li>Populated by {@link CustomItemTagManager} from datapacks</li>
- * <li>Accessed by {@link ItemStackMixin} during aspect initialization</li>
+ * <li>Resolved per item by {@link ItemAspectCache}, which {@link ItemStackMixin} reads during aspect initialization</li>
  * </p>
  * <br>
  * Example datapack entry (data/aspectslib/tags/items/aspects.json):
@@ -54,10 +54,12 @@ public class ItemAspectRegistry {
     public static AspectData register(Identifier id, AspectData aspect) {
         if(idToAspect.containsKey(id)) {
             AspectData existing = idToAspect.get(id);
-            existing.addAspect(aspect);
+            idToAspect.put(id, existing.addAspect(aspect));
+            ItemAspectCache.invalidate();
             return aspect;
         }
         idToAspect.put(id, aspect);
+        ItemAspectCache.invalidate();
         return aspect;
     }
 
@@ -83,6 +85,7 @@ public class ItemAspectRegistry {
      */
     protected static void remove(Identifier id) {
         idToAspect.remove(id);
+        ItemAspectCache.invalidate();
     }
 
     /**
@@ -164,6 +167,7 @@ public class ItemAspectRegistry {
      */
     public static void clear() {
         idToAspect.clear();
+        ItemAspectCache.invalidate();
     }
 
     /**
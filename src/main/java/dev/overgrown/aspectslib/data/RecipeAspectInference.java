@@ -0,0 +1,424 @@
+package dev.overgrown.aspectslib.data;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import dev.overgrown.aspectslib.AspectsLib;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMaps;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.recipe.Ingredient;
+import net.minecraft.recipe.Recipe;
+import net.minecraft.recipe.RecipeManager;
+import net.minecraft.registry.DynamicRegistryManager;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.Util;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Infers default aspects for crafted items from the recipes that produce them.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ * <li>Captures the recipe graph and the explicitly registered item aspects after every reload</li>
+ * <li>Solves the aspects of every craftable item on the worker pool and publishes them to {@link ItemAspectCache}</li>
+ * <li>Stores solved results in a cache file keyed by the hash of the inputs, so restarts skip the solve</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Started by {@link AspectsLib} when the server started or reloaded its datapacks</li>
+ * <li>Started on clients of remote servers once the synced tags are bound</li>
+ * </p>
+ * An item's aspects are the summed aspects of one recipe's ingredients, scaled by {@link #LOSS_FACTOR} and divided
+ * by the output count. For every ingredient slot the cheapest item with known aspects is used, and among several
+ * recipes for the same item the cheapest result wins. Items with explicit aspects are never overridden. Items are
+ * resolved in passes, breadth first from the items with explicit aspects: an item is fixed in the first pass in
+ * which one of its recipes only needs items fixed in earlier passes, and is never re-evaluated. Recipe cycles
+ * therefore settle on the value of their acyclic route (e.g. ingot from ore, not from the block crafted from the
+ * ingot), and cycles that no acyclic route reaches stay without aspects. A recipe is skipped while one of its slots
+ * only holds craftable items that have no aspects yet. Items that are neither registered nor craftable count as
+ * having no aspects.
+ * <br>
+ * Only the snapshot is taken on the calling thread, as ingredients have to resolve their tags there. A run is
+ * identified by a generation; results of a run that was superseded by a newer reload are discarded.
+ */
+public class RecipeAspectInference {
+
+    /**
+     * Fraction of the ingredient aspects that ends up in the crafted item.
+     */
+    public static final double LOSS_FACTOR = 0.75;
+
+    /**
+     * Bumped whenever the solver or the cache file layout changes, so older cache files never match.
+     */
+    private static final int VERSION = 2;
+
+    private static final int MAX_CACHE_FILES = 4;
+
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+
+    /**
+     * Captures the recipes and explicit item aspects, then infers the aspects of crafted items asynchronously.
+     *
+     * @param recipes    The recipes to infer from.
+     * @param registries The registries used to resolve recipe outputs.
+     */
+    public static void start(RecipeManager recipes, DynamicRegistryManager registries) {
+        int generation = GENERATION.incrementAndGet();
+        long started = System.nanoTime();
+        Snapshot snapshot = Snapshot.capture(recipes, registries);
+
+        CompletableFuture.runAsync(() -> {
+            long hash = snapshot.hash();
+            Reference2ObjectMap<Item, AspectData> inferred = load(hash);
+            boolean cached = inferred != null;
+            if (!cached) {
+                inferred = solve(snapshot);
+            }
+
+            if (GENERATION.get() != generation) {
+                return;
+            }
+            ItemAspectCache.publishInferred(inferred);
+            AspectsLib.LOGGER.info("Inferred aspects for {} items from {} recipes in {} ms{}", inferred.size(),
+                    snapshot.recipes.size(), (System.nanoTime() - started) / 1_000_000, cached ? " (cached)" : "");
+
+            if (!cached) {
+                store(hash, inferred);
+            }
+        }, Util.getMainWorkerExecutor()).exceptionally(throwable -> {
+            AspectsLib.LOGGER.error("Failed to infer item aspects from recipes", throwable);
+            return null;
+        });
+    }
+
+    /**
+     * Discards the inferred aspects and any run still in progress, e.g. when leaving a world.
+     */
+    public static void reset() {
+        GENERATION.incrementAndGet();
+        ItemAspectCache.publishInferred(Reference2ObjectMaps.emptyMap());
+    }
+
+    private static Reference2ObjectMap<Item, AspectData> solve(Snapshot snapshot) {
+        int itemCount = snapshot.items.size();
+        AspectData[] values = Arrays.copyOf(snapshot.explicit, itemCount);
+        long[] sums = new long[AspectOrdinals.size()];
+        IntArrayList resolvedOutputs = new IntArrayList();
+        List<AspectData> resolvedValues = new ArrayList<>();
+
+        // Every pass resolves the items whose recipes only need items resolved in earlier passes. Values are
+        // committed after the pass and never replaced, so no item is ever derived through itself.
+        boolean changed = true;
+        while (changed) {
+            resolvedOutputs.clear();
+            resolvedValues.clear();
+
+            // Recipes are grouped by output, so the cheapest recipe of an item is chosen within one pass
+            int start = 0;
+            while (start < snapshot.recipes.size()) {
+                int output = snapshot.recipes.get(start).output;
+                int end = start;
+                AspectData best = null;
+                while (end < snapshot.recipes.size() && snapshot.recipes.get(end).output == output) {
+                    if (values[output] == null) {
+                        AspectData result = evaluate(snapshot, snapshot.recipes.get(end), values, sums);
+                        if (result != null && (best == null || result.calculateTotalRU() < best.calculateTotalRU())) {
+                            best = result;
+                        }
+                    }
+                    end++;
+                }
+                start = end;
+
+                if (best != null) {
+                    resolvedOutputs.add(output);
+                    resolvedValues.add(best);
+                }
+            }
+
+            for (int i = 0; i < resolvedOutputs.size(); i++) {
+                values[resolvedOutputs.getInt(i)] = resolvedValues.get(i);
+            }
+            changed = !resolvedOutputs.isEmpty();
+        }
+
+        Reference2ObjectOpenHashMap<Item, AspectData> inferred = new Reference2ObjectOpenHashMap<>();
+        for (int i = 0; i < itemCount; i++) {
+            if (snapshot.explicit[i] == null && values[i] != null && !values[i].isEmpty()) {
+                inferred.put(snapshot.items.get(i), values[i]);
+            }
+        }
+        return Reference2ObjectMaps.unmodifiable(inferred);
+    }
+
+    /**
+     * Evaluates one recipe against the current values.
+     *
+     * @return The aspects of one output item, or null if a slot has no known aspects yet.
+     */
+    @Nullable
+    private static AspectData evaluate(Snapshot snapshot, RecipeNode recipe, AspectData[] values, long[] sums) {
+        Arrays.fill(sums, 0);
+        for (int[] slot : recipe.slots) {
+            AspectData cheapest = null;
+            boolean pending = false;
+            for (int item : slot) {
+                AspectData value = values[item];
+                if (value == null) {
+                    pending |= snapshot.craftable[item];
+                } else if (cheapest == null || value.calculateTotalRU() < cheapest.calculateTotalRU()) {
+                    cheapest = value;
+                }
+            }
+            if (cheapest == null) {
+                if (pending) {
+                    return null;
+                }
+                continue;
+            }
+            for (int i = 0; i < cheapest.getSize(); i++) {
+                sums[cheapest.getOrdinal(i)] += cheapest.getAmount(i);
+            }
+        }
+
+        IntArrayList ordinals = new IntArrayList();
+        IntArrayList amounts = new IntArrayList();
+        for (int ordinal = 0; ordinal < sums.length; ordinal++) {
+            int amount = (int) Math.min(Integer.MAX_VALUE, (long) (sums[ordinal] * LOSS_FACTOR / recipe.count));
+            if (amount > 0) {
+                ordinals.add(ordinal);
+                amounts.add(amount);
+            }
+        }
+        short[] sortedOrdinals = new short[ordinals.size()];
+        for (int i = 0; i < sortedOrdinals.length; i++) {
+            sortedOrdinals[i] = (short) ordinals.getInt(i);
+        }
+        return AspectData.ofSorted(sortedOrdinals, amounts.toIntArray()).intern();
+    }
+
+    private static Path getDirectory() {
+        return FabricLoader.getInstance().getGameDir().resolve(".cache").resolve(AspectsLib.MOD_ID).resolve("inference");
+    }
+
+    private static Path getFile(long hash) {
+        return getDirectory().resolve(String.format("%016x.dat", hash));
+    }
+
+    @Nullable
+    private static Reference2ObjectMap<Item, AspectData> load(long hash) {
+        Path file = getFile(hash);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (InputStream in = Files.newInputStream(file)) {
+            NbtCompound nbt = NbtIo.readCompressed(in);
+            if (nbt.getInt("Version") != VERSION || nbt.getLong("Hash") != hash) {
+                return null;
+            }
+
+            NbtCompound items = nbt.getCompound("Items");
+            Reference2ObjectOpenHashMap<Item, AspectData> inferred = new Reference2ObjectOpenHashMap<>(items.getSize());
+            for (String key : items.getKeys()) {
+                Identifier id = Identifier.tryParse(key);
+                if (id == null || !Registries.ITEM.containsId(id) || !items.contains(key, NbtElement.COMPOUND_TYPE)) {
+                    continue;
+                }
+                AspectData aspects = AspectData.fromNbt(items.getCompound(key));
+                if (!aspects.isEmpty()) {
+                    inferred.put(Registries.ITEM.get(id), aspects);
+                }
+            }
+
+            // Mark as recently used for pruning
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return Reference2ObjectMaps.unmodifiable(inferred);
+        } catch (Exception e) {
+            AspectsLib.LOGGER.warn("Failed to read inferred aspect cache file {}: {}", file.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static void store(long hash, Reference2ObjectMap<Item, AspectData> inferred) {
+        NbtCompound items = new NbtCompound();
+        for (Reference2ObjectMap.Entry<Item, AspectData> entry : inferred.reference2ObjectEntrySet()) {
+            items.put(Registries.ITEM.getId(entry.getKey()).toString(), entry.getValue().toNbt());
+        }
+        NbtCompound nbt = new NbtCompound();
+        nbt.putInt("Version", VERSION);
+        nbt.putLong("Hash", hash);
+        nbt.put("Items", items);
+
+        Util.getIoWorkerExecutor().execute(() -> {
+            Path directory = getDirectory();
+            Path file = getFile(hash);
+            try {
+                Files.createDirectories(directory);
+                Path temp = Files.createTempFile(directory, "inference", ".tmp");
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    NbtIo.writeCompressed(nbt, out);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                prune(directory);
+            } catch (IOException e) {
+                AspectsLib.LOGGER.warn("Failed to write inferred aspect cache file {}: {}", file.getFileName(), e.getMessage());
+            }
+        });
+    }
+
+    private static void prune(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(".dat"))
+                    .sorted(Comparator.comparing(RecipeAspectInference::lastModified).reversed())
+                    .toList();
+        }
+        for (int i = MAX_CACHE_FILES; i < files.size(); i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * A recipe reduced to item indices into {@link Snapshot#items}.
+     *
+     * @param id     The recipe identifier.
+     * @param output The index of the crafted item.
+     * @param count  The number of items crafted.
+     * @param slots  The indices of the items accepted by each non-empty ingredient.
+     */
+    private record RecipeNode(Identifier id, int output, int count, int[][] slots) {
+    }
+
+    /**
+     * Immutable input of a solve: every item that takes part in a recipe or has explicit aspects, the explicit
+     * aspects by item index, and the recipes sorted by output and id.
+     */
+    private record Snapshot(List<Item> items, AspectData[] explicit, boolean[] craftable, List<RecipeNode> recipes) {
+
+        static Snapshot capture(RecipeManager recipeManager, DynamicRegistryManager registries) {
+            List<Item> items = new ArrayList<>();
+            Reference2IntOpenHashMap<Item> indices = new Reference2IntOpenHashMap<>();
+            indices.defaultReturnValue(-1);
+
+            Reference2ObjectMap<Item, AspectData> explicitByItem = ItemAspectCache.getExplicit();
+            List<Item> explicitItems = new ArrayList<>(explicitByItem.keySet());
+            explicitItems.sort(Comparator.comparing(Registries.ITEM::getId));
+            for (Item item : explicitItems) {
+                indexOf(item, items, indices);
+            }
+
+            // Visited by id, so items are indexed in the same order in every game instance
+            List<Recipe<?>> sortedRecipes = new ArrayList<>(recipeManager.values());
+            sortedRecipes.sort(Comparator.comparing(Recipe::getId));
+
+            List<RecipeNode> recipes = new ArrayList<>();
+            for (Recipe<?> recipe : sortedRecipes) {
+                ItemStack result = recipe.getOutput(registries);
+                if (result.isEmpty() || recipe.getIngredients().isEmpty()) {
+                    continue;
+                }
+
+                List<int[]> slots = new ArrayList<>();
+                for (Ingredient ingredient : recipe.getIngredients()) {
+                    if (ingredient.isEmpty()) {
+                        continue;
+                    }
+                    ItemStack[] stacks = ingredient.getMatchingStacks();
+                    int[] slot = new int[stacks.length];
+                    for (int i = 0; i < stacks.length; i++) {
+                        slot[i] = indexOf(stacks[i].getItem(), items, indices);
+                    }
+                    slots.add(slot);
+                }
+                if (!slots.isEmpty()) {
+                    int output = indexOf(result.getItem(), items, indices);
+                    recipes.add(new RecipeNode(recipe.getId(), output, result.getCount(), slots.toArray(int[][]::new)));
+                }
+            }
+            recipes.sort(Comparator.comparingInt(RecipeNode::output).thenComparing(RecipeNode::id));
+
+            AspectData[] explicit = new AspectData[items.size()];
+            boolean[] craftable = new boolean[items.size()];
+            for (int i = 0; i < items.size(); i++) {
+                explicit[i] = explicitByItem.get(items.get(i));
+            }
+            for (RecipeNode recipe : recipes) {
+                craftable[recipe.output] = true;
+            }
+            return new Snapshot(List.copyOf(items), explicit, craftable, List.copyOf(recipes));
+        }
+
+        private static int indexOf(Item item, List<Item> items, Reference2IntOpenHashMap<Item> indices) {
+            int index = indices.getInt(item);
+            if (index < 0) {
+                index = items.size();
+                items.add(item);
+                indices.put(item, index);
+            }
+            return index;
+        }
+
+        /**
+         * Hashes everything the solve depends on, by identifier, so the hash is stable between game instances.
+         */
+        long hash() {
+            Hasher hasher = Hashing.murmur3_128().newHasher();
+            hasher.putInt(VERSION).putDouble(LOSS_FACTOR).putInt(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                hasher.putUnencodedChars(Registries.ITEM.getId(items.get(i)).toString());
+                AspectData aspects = explicit[i];
+                int size = aspects != null ? aspects.getSize() : -1;
+                hasher.putInt(size);
+                for (int j = 0; j < size; j++) {
+                    hasher.putUnencodedChars(AspectOrdinals.nameOf(aspects.getOrdinal(j))).putInt(aspects.getAmount(j));
+                }
+            }
+            hasher.putInt(recipes.size());
+            for (RecipeNode recipe : recipes) {
+                hasher.putUnencodedChars(recipe.id.toString()).putInt(recipe.output).putInt(recipe.count).putInt(recipe.slots.length);
+                for (int[] slot : recipe.slots) {
+                    hasher.putInt(slot.length);
+                    for (int item : slot) {
+                        hasher.putInt(item);
+                    }
+                }
+            }
+            return hasher.hash().asLong();
+        }
+    }
+}
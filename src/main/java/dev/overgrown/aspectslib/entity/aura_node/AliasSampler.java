@@ -0,0 +1,87 @@
+package dev.overgrown.aspectslib.entity.aura_node;
+
+import net.minecraft.util.math.random.Random;
+
+import java.util.List;
+
+/**
+ * Samples values by weight in constant time, using Vose's alias method.
+ * <p>
+ * Every value gets one column. A sample picks a column uniformly and returns either the column's own value or its
+ * alias, so sampling costs two random numbers and never allocates.
+ * </p>
+ *
+ * @param <T> The type of the sampled values
+ */
+public class AliasSampler<T> {
+    private final Object[] values;
+    private final double[] probabilities;
+    private final int[] aliases;
+
+    /**
+     * @param values  The values to sample
+     * @param weights The weight of each value, must be positive
+     */
+    public AliasSampler(List<T> values, double[] weights) {
+        int size = values.size();
+        this.values = values.toArray();
+        this.probabilities = new double[size];
+        this.aliases = new int[size];
+
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+
+        // Scale the weights so the average column is exactly full
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / total;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        // Fill every underfull column with the excess of an overfull one
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+
+        // Whatever is left is full, up to rounding errors
+        while (largeCount > 0) {
+            probabilities[large[--largeCount]] = 1.0;
+        }
+        while (smallCount > 0) {
+            probabilities[small[--smallCount]] = 1.0;
+        }
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T sample(Random random) {
+        int column = random.nextInt(values.length);
+        return (T) values[random.nextDouble() < probabilities[column] ? column : aliases[column]];
+    }
+}
@@ -0,0 +1,204 @@
+package dev.overgrown.aspectslib.entity.aura_node;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import dev.overgrown.aspectslib.AspectsLib;
+import dev.overgrown.aspectslib.data.ModRegistries;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.objects.Object2DoubleLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2DoubleMap;
+import net.fabricmc.fabric.api.resource.IdentifiableResourceReloadListener;
+import net.minecraft.resource.JsonDataLoader;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.JsonHelper;
+import net.minecraft.util.math.random.Random;
+import net.minecraft.util.profiler.Profiler;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Loads the weighted aspect tables aura nodes draw their aspects from.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ * <li>Loads tables from data/&lt;namespace&gt;/aura_node_aspects</li>
+ * <li>Compiles every table into alias samplers on reload, so nodes sample in constant time</li>
+ * <li>Resolves the table of a biome, falling back to the default table</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Sampled by {@link AuraNodeEntity#initializeAspects}</li>
+ * </p>
+ * A table file lists the biomes it applies to under {@code "biomes"}, or none for the default table, and its
+ * tiers under {@code "tiers"}. Every tier has a {@code "weight"} and an {@code "aspects"} object of aspect ids and
+ * weights. The {@code "primal"} tier is special: it is picked with the node type's primal chance, all other tiers
+ * are picked by weight. Files for the same biomes are merged. Aspects that are not loaded are skipped.
+ * <br>
+ * Dependencies: Runs after AspectManager
+ */
+public class AuraNodeAspectManager extends JsonDataLoader implements IdentifiableResourceReloadListener {
+    private static final Gson GSON = new Gson();
+
+    public static final String PRIMAL_TIER = "primal";
+
+    private static volatile Map<Identifier, AspectTable> biomeTables = Map.of();
+    private static volatile AspectTable defaultTable = AspectTable.EMPTY;
+
+    public AuraNodeAspectManager() {
+        super(GSON, "aura_node_aspects");
+    }
+
+    /**
+     * Gets the aspect table of a biome, or the default table if the biome has none.
+     */
+    public static AspectTable getTable(@Nullable Identifier biomeId) {
+        AspectTable table = biomeId != null ? biomeTables.get(biomeId) : null;
+        return table != null ? table : defaultTable;
+    }
+
+    @Override
+    protected void apply(Map<Identifier, JsonElement> prepared, ResourceManager manager, Profiler profiler) {
+        // Tables by biome, the default table under null
+        Map<Identifier, Map<String, TierBuilder>> builders = new HashMap<>();
+
+        prepared.forEach((resourceId, json) -> {
+            try {
+                JsonObject jsonObj = JsonHelper.asObject(json, "aura node aspect table");
+                List<Identifier> biomes = new ArrayList<>();
+                if (jsonObj.has("biomes")) {
+                    for (JsonElement biome : JsonHelper.getArray(jsonObj, "biomes")) {
+                        biomes.add(new Identifier(JsonHelper.asString(biome, "biome")));
+                    }
+                } else {
+                    biomes.add(null);
+                }
+
+                JsonObject tiers = JsonHelper.getObject(jsonObj, "tiers");
+                for (Map.Entry<String, JsonElement> tierEntry : tiers.entrySet()) {
+                    JsonObject tierObj = JsonHelper.asObject(tierEntry.getValue(), tierEntry.getKey());
+                    double weight = JsonHelper.getDouble(tierObj, "weight", 1.0);
+                    JsonObject aspects = JsonHelper.getObject(tierObj, "aspects");
+
+                    for (Identifier biome : biomes) {
+                        TierBuilder tier = builders.computeIfAbsent(biome, key -> new LinkedHashMap<>())
+                                .computeIfAbsent(tierEntry.getKey(), key -> new TierBuilder());
+                        tier.weight = weight;
+                        for (Map.Entry<String, JsonElement> aspectEntry : aspects.entrySet()) {
+                            Identifier aspectId = new Identifier(aspectEntry.getKey());
+                            if (!ModRegistries.ASPECTS.containsKey(aspectId)) {
+                                AspectsLib.LOGGER.warn("Skipping unknown aspect {} in aura node aspect table {}", aspectId, resourceId);
+                                continue;
+                            }
+                            tier.aspects.addTo(aspectId, JsonHelper.asDouble(aspectEntry.getValue(), aspectEntry.getKey()));
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                AspectsLib.LOGGER.error("Error loading aura node aspect table from {}: {}", resourceId, e.getMessage());
+            }
+        });
+
+        Map<Identifier, AspectTable> tables = new HashMap<>();
+        AspectTable compiledDefault = AspectTable.EMPTY;
+        for (Map.Entry<Identifier, Map<String, TierBuilder>> entry : builders.entrySet()) {
+            AspectTable table = compile(entry.getValue());
+            if (entry.getKey() == null) {
+                compiledDefault = table;
+            } else {
+                tables.put(entry.getKey(), table);
+            }
+        }
+        biomeTables = tables;
+        defaultTable = compiledDefault;
+
+        AspectsLib.LOGGER.info("Loaded aura node aspect tables for {} biomes (default table: {} aspects)",
+                tables.size(), compiledDefault.size());
+    }
+
+    private static AspectTable compile(Map<String, TierBuilder> tiers) {
+        List<Identifier> primal = new ArrayList<>();
+        DoubleArrayList primalWeights = new DoubleArrayList();
+        List<Identifier> other = new ArrayList<>();
+        DoubleArrayList otherWeights = new DoubleArrayList();
+
+        for (Map.Entry<String, TierBuilder> entry : tiers.entrySet()) {
+            TierBuilder tier = entry.getValue();
+            double aspectTotal = 0;
+            for (Object2DoubleMap.Entry<Identifier> aspect : tier.aspects.object2DoubleEntrySet()) {
+                if (aspect.getDoubleValue() > 0) {
+                    aspectTotal += aspect.getDoubleValue();
+                }
+            }
+            if (aspectTotal <= 0 || tier.weight <= 0) continue;
+
+            boolean isPrimal = entry.getKey().equals(PRIMAL_TIER);
+            for (Object2DoubleMap.Entry<Identifier> aspect : tier.aspects.object2DoubleEntrySet()) {
+                if (aspect.getDoubleValue() <= 0) continue;
+                if (isPrimal) {
+                    primal.add(aspect.getKey());
+                    primalWeights.add(aspect.getDoubleValue());
+                } else {
+                    // Share of the tier, times the share of the aspect within the tier
+                    other.add(aspect.getKey());
+                    otherWeights.add(tier.weight * aspect.getDoubleValue() / aspectTotal);
+                }
+            }
+        }
+
+        return new AspectTable(
+                new AliasSampler<>(primal, primalWeights.toDoubleArray()),
+                new AliasSampler<>(other, otherWeights.toDoubleArray()));
+    }
+
+    @Override
+    public Identifier getFabricId() {
+        return AspectsLib.identifier("aura_node_aspects");
+    }
+
+    @Override
+    public Collection<Identifier> getFabricDependencies() {
+        return List.of(AspectsLib.identifier("aspects"));
+    }
+
+    private static class TierBuilder {
+        private double weight = 1.0;
+        private final Object2DoubleLinkedOpenHashMap<Identifier> aspects = new Object2DoubleLinkedOpenHashMap<>();
+    }
+
+    /**
+     * Compiled aspect table of one biome.
+     */
+    public static class AspectTable {
+        public static final AspectTable EMPTY = new AspectTable(
+                new AliasSampler<>(List.of(), new double[0]), new AliasSampler<>(List.of(), new double[0]));
+
+        private final AliasSampler<Identifier> primal;
+        private final AliasSampler<Identifier> other;
+
+        private AspectTable(AliasSampler<Identifier> primal, AliasSampler<Identifier> other) {
+            this.primal = primal;
+            this.other = other;
+        }
+
+        /**
+         * Samples an aspect, from the primal tier with the given chance and from the other tiers by weight otherwise.
+         *
+         * @return The aspect, or null if the table is empty.
+         */
+        @Nullable
+        public Identifier sample(Random random, float primalChance) {
+            if (!primal.isEmpty() && (other.isEmpty() || random.nextFloat() < primalChance)) {
+                return primal.sample(random);
+            }
+            return !other.isEmpty() ? other.sample(random) : null;
+        }
+
+        public int size() {
+            return primal.size() + other.size();
+        }
+    }
+}
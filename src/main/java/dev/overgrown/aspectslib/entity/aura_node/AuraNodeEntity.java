@@ -1,17 +1,21 @@
 package dev.overgrown.aspectslib.entity.aura_node;
 
 import dev.overgrown.aspectslib.AspectsLib;
+import dev.overgrown.aspectslib.aether.AetherDensityManager;
 import dev.overgrown.aspectslib.data.AspectData;
+import dev.overgrown.aspectslib.data.AspectOrdinals;
+import dev.overgrown.aspectslib.networking.AspectPalette;
+import dev.overgrown.aspectslib.networking.AuraNodeSyncPacket;
+import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
+import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.packet.Packet;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
 import dev.overgrown.aspectslib.resonance.ResonanceCalculator;
-import dev.overgrown.aspectslib.aether.DynamicAetherDensityManager;
-import net.minecraft.entity.SpawnReason;
 import net.minecraft.entity.passive.AnimalEntity;
-import net.minecraft.registry.RegistryKey;
-import net.minecraft.registry.entry.RegistryEntry;
 import net.minecraft.registry.tag.BlockTags;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.WorldAccess;
-import net.minecraft.world.biome.Biome;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
@@ -24,19 +28,26 @@ import net.minecraft.nbt.NbtList;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.random.Random;
 import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
+/**
+ * An aura node, holding a set of aspects that regenerate over time.
+ * <p>
+ * Node logic does not run in {@link #tick()}, it runs in {@link AuraNodeSystem}, which updates all loaded nodes of
+ * a world in batched passes.
+ */
 public class AuraNodeEntity extends Entity {
     // Node types
     public enum NodeType {
         NORMAL, PURE, SINISTER, UNSTABLE, HUNGRY
     }
 
-    // Regeneration accumulators
-    private final Map<Identifier, Float> regenAccumulators = new HashMap<>();
-
-    // Aspect state storage
+    /**
+     * Aspect state, as returned by {@link #getAspects()}. The states are views of the node's storage: the node
+     * reads changes made to the fields back at its next update, save or explicit change, and syncs them.
+     */
     public static class AspectState {
         public int original;
         public int current;
@@ -53,19 +64,42 @@ public class AuraNodeEntity extends Entity {
         }
     }
 
+    private static final NodeType[] NODE_TYPES = NodeType.values();
+
     // Tracked data
     private static final TrackedData<Integer> NODE_TYPE = DataTracker.registerData(AuraNodeEntity.class, TrackedDataHandlerRegistry.INTEGER);
-    private static final TrackedData<NbtCompound> ASPECTS_NBT = DataTracker.registerData(AuraNodeEntity.class, TrackedDataHandlerRegistry.NBT_COMPOUND);
 
     // Aspect identifiers
     public static final Identifier FAMES_ASPECT = AspectsLib.identifier("fames");
     public static final Identifier VITIUM_ASPECT = AspectsLib.identifier("vitium");
 
-    private Map<Identifier, AspectState> aspects = new HashMap<>();
+    // Aspect state storage - parallel arrays indexed by slot, the first aspectCount slots are in use
+    private short[] ordinals = new short[0];
+    private int[] originals = new int[0];
+    private int[] currents = new int[0];
+    // Regeneration accumulators, the fraction of a point regenerated but not yet added
+    private float[] accumulators = new float[0];
+    private int aspectCount = 0;
+    // States handed out through getAspects per slot, null until requested
+    private AspectState[] views = new AspectState[0];
+    // Saved aspects that are not loaded, e.g. from a removed datapack, written back unchanged
+    @Nullable
+    private NbtList unresolvedAspects = null;
+
+    // Server side: aspects as last sent to tracking players, deltas are computed against this
+    private short[] syncedOrdinals = new short[0];
+    private int[] syncedOriginals = new int[0];
+    private int[] syncedCurrents = new int[0];
+    private int syncedCount = 0;
+
     private int instabilityCounter = 0;
     private int hungerCounter = 0;
     private int sinisterCounter = 0;
 
+    // World time of the last update by AuraNodeSystem, and the region it indexed the node in
+    long lastUpdateTime;
+    long regionKey;
+
     public AuraNodeEntity(EntityType<?> type, World world) {
         super(type, world);
         this.noClip = true; // No collision
@@ -75,299 +109,213 @@ public class AuraNodeEntity extends Entity {
     @Override
     protected void initDataTracker() {
         this.dataTracker.startTracking(NODE_TYPE, NodeType.NORMAL.ordinal());
-        this.dataTracker.startTracking(ASPECTS_NBT, new NbtCompound());
     }
 
-    @Override
-    public void tick() {
-        super.tick();
-
-        if (!this.getWorld().isClient()) {
-            // Natural regeneration for aspects
-            regenerateAspects();
+    /**
+     * Advances the node by the given number of ticks. Called by {@link AuraNodeSystem}, which also applies the
+     * aether the node adds to or drains from its chunk.
+     */
+    void update(AuraNodeSystem system, NodeType type, int ticks) {
+        pullViews();
 
-            // Remove aspects that have been drained to 0
-            removeDrainedAspects();
+        // Natural regeneration for aspects
+        regenerateAspects(type, ticks);
 
-            // Check if node should die
-            if (aspects.isEmpty()) {
-//                this.discard();
-                return;
-            }
+        // Remove aspects that have been drained to 0
+        removeDrainedAspects();
 
-            // Type-specific behaviors
-            switch (getNodeType()) {
-                case SINISTER:
-                    handleSinisterBehavior();
-                    break;
-                case HUNGRY:
-                    handleHungryBehavior();
-                    break;
-                case UNSTABLE:
-                    handleUnstableBehavior();
-                    break;
-            }
+        // Check if node should die
+        if (aspectCount == 0) {
+//            this.discard();
+            return;
+        }
 
-            // Update tracked data periodically
-            if (this.age % 20 == 0) {
-                updateTrackedAspects();
-            }
+        // Type-specific behaviors
+        switch (type) {
+            case SINISTER:
+                handleSinisterBehavior(system, ticks);
+                break;
+            case HUNGRY:
+                handleHungryBehavior(system, ticks);
+                break;
+            case UNSTABLE:
+                handleUnstableBehavior(ticks);
+                break;
         }
+
+        // Sync changed aspects
+        syncAspects();
     }
 
     public int getRenderColour() {
         return 0xFFAA6655; // This a packed ARGB integer
     }
 
-    private void regenerateAspects() {
+    private void regenerateAspects(NodeType type, int ticks) {
         // Base regeneration rate (0.1% per second)
         final float BASE_REGEN_RATE = 0.00005f; // Much slower rate
 
-        switch (getNodeType()) {
-            case NORMAL, PURE -> regenerateStandard(BASE_REGEN_RATE);
-            case SINISTER -> regenerateSinister(BASE_REGEN_RATE);
-            case UNSTABLE -> regenerateUnstable(BASE_REGEN_RATE);
-            case HUNGRY -> regenerateHungry(BASE_REGEN_RATE);
+        switch (type) {
+            case NORMAL, PURE -> regenerateStandard(BASE_REGEN_RATE, ticks);
+            case SINISTER -> regenerateSinister(BASE_REGEN_RATE, ticks);
+            case UNSTABLE -> regenerateUnstable(BASE_REGEN_RATE, ticks);
+            case HUNGRY -> regenerateHungry(BASE_REGEN_RATE, ticks);
         }
     }
 
-    private void regenerateStandard(float baseRate) {
-        for (Map.Entry<Identifier, AspectState> entry : aspects.entrySet()) {
-            regenerateAspect(entry.getKey(), entry.getValue(), baseRate);
+    private void regenerateStandard(float baseRate, int ticks) {
+        for (int i = 0; i < aspectCount; i++) {
+            regenerateAspect(i, baseRate, ticks);
         }
     }
 
-    private void regenerateSinister(float baseRate) {
-        for (Map.Entry<Identifier, AspectState> entry : aspects.entrySet()) {
+    private void regenerateSinister(float baseRate, int ticks) {
+        int vitium = AspectOrdinals.get(VITIUM_ASPECT);
+        for (int i = 0; i < aspectCount; i++) {
             float rate = baseRate;
-            if (entry.getKey().equals(VITIUM_ASPECT)) {
+            if (ordinals[i] == vitium) {
                 rate *= 1.5f; // Vitium regenerates 50% faster
             }
-            regenerateAspect(entry.getKey(), entry.getValue(), rate);
-        }
-
-        // Handle sinister corruption
-        sinisterCounter++;
-        if (sinisterCounter >= 100) { // Every 5 seconds
-            sinisterCounter = 0;
-            RegistryEntry<Biome> biomeEntry = getWorld().getBiome(getBlockPos());
-            Identifier biomeId = biomeEntry.getKey().map(RegistryKey::getValue).orElse(null);
-
-            if (biomeId != null) {
-                DynamicAetherDensityManager.addModification(
-                        biomeId,
-                        VITIUM_ASPECT,
-                        10 // Add 10 Vitium per corruption cycle
-                );
-            }
+            regenerateAspect(i, rate, ticks);
         }
     }
 
-    private void regenerateUnstable(float baseRate) {
-        for (Map.Entry<Identifier, AspectState> entry : aspects.entrySet()) {
-            regenerateAspect(entry.getKey(), entry.getValue(), baseRate * 0.8f);
+    private void regenerateUnstable(float baseRate, int ticks) {
+        for (int i = 0; i < aspectCount; i++) {
+            regenerateAspect(i, baseRate * 0.8f, ticks);
         }
     }
 
-    private void regenerateHungry(float baseRate) {
-        AspectState famesState = aspects.get(FAMES_ASPECT);
-        if (famesState == null) return;
+    private void regenerateHungry(float baseRate, int ticks) {
+        int fames = indexOf(AspectOrdinals.get(FAMES_ASPECT));
+        if (fames < 0) return;
 
-        // If Fames isn't full, consume other aspects
-        if (famesState.current < famesState.original) {
-            float totalConsumed = 0;
-            List<Identifier> toRemove = new ArrayList<>();
+        // If Fames isn't full, consume other aspects (0.2% per tick), otherwise consume them aggressively (0.4% per tick)
+        boolean famesFull = currents[fames] >= originals[fames];
+        float consumeRate = baseRate * (famesFull ? 8 : 4);
+        float consumedPerTick = 0;
 
-            for (Map.Entry<Identifier, AspectState> entry : aspects.entrySet()) {
-                if (entry.getKey().equals(FAMES_ASPECT)) continue;
+        for (int i = 0; i < aspectCount; i++) {
+            if (i == fames || currents[i] <= 0) continue;
 
-                AspectState state = entry.getValue();
-                if (state.current <= 0) {
-                    toRemove.add(entry.getKey());
-                    continue;
-                }
-
-                // Calculate consumption (0.2% per tick)
-                float consumeAmount = state.original * baseRate * 4;
-                float available = Math.min(consumeAmount, state.current);
-
-                state.current -= (int) available;
-                totalConsumed += available;
-
-                if (state.current <= 0) {
-                    toRemove.add(entry.getKey());
-                }
-            }
-
-            // Add consumed aspects to Fames
-            if (totalConsumed > 0) {
-                famesState.current = (int) Math.min(
-                        famesState.original,
-                        famesState.current + totalConsumed
-                );
-            }
+            // Whole points consumed per tick, for all ticks since the last update
+            float available = Math.min(originals[i] * consumeRate, currents[i]);
+            currents[i] -= (int) Math.min((long) (int) available * ticks, currents[i]);
+            consumedPerTick += available;
+        }
 
-            // Remove consumed aspects
-            for (Identifier id : toRemove) {
-                aspects.remove(id);
+        long totalConsumed = (long) (int) consumedPerTick * ticks;
+        if (totalConsumed > 0) {
+            if (famesFull) {
+                // Add consumed aspects to Fames (making it stronger)
+                originals[fames] = (int) Math.min(Integer.MAX_VALUE, originals[fames] + totalConsumed);
+                currents[fames] = originals[fames];
+            } else {
+                // Add consumed aspects to Fames
+                currents[fames] = (int) Math.min(originals[fames], currents[fames] + totalConsumed);
             }
-        } else {
-            // If Fames is full, consume other aspects aggressively
-            float totalConsumed = 0;
-            List<Identifier> toRemove = new ArrayList<>();
-
-            for (Map.Entry<Identifier, AspectState> entry : aspects.entrySet()) {
-                if (entry.getKey().equals(FAMES_ASPECT)) continue;
-
-                AspectState state = entry.getValue();
-                if (state.current <= 0) {
-                    toRemove.add(entry.getKey());
-                    continue;
-                }
-
-                // More aggressive consumption (0.4% per tick)
-                float consumeAmount = state.original * baseRate * 8;
-                float available = Math.min(consumeAmount, state.current);
-
-                state.current -= (int) available;
-                totalConsumed += available;
+        }
 
-                if (state.current <= 0) {
-                    toRemove.add(entry.getKey());
+        // Remove consumed aspects, moving Fames along if its slot is reused
+        for (int i = aspectCount - 1; i >= 0; i--) {
+            if (i != fames && currents[i] <= 0) {
+                removeAt(i);
+                if (fames == aspectCount) {
+                    fames = i;
                 }
             }
-
-            // Add consumed aspects to Fames (making it stronger)
-            if (totalConsumed > 0) {
-                famesState.original += (int) totalConsumed; // Make Fames stronger
-                famesState.current = famesState.original;
-            }
-
-            // Remove consumed aspects
-            for (Identifier id : toRemove) {
-                aspects.remove(id);
-            }
         }
 
         // If only Fames remains, and it's full, start consuming itself
-        if (aspects.size() == 1 && aspects.containsKey(FAMES_ASPECT) &&
-                famesState.current >= famesState.original) {
-
+        if (aspectCount == 1 && currents[fames] >= originals[fames]) {
             // Self-consumption (0.1% per tick)
-            float consumeAmount = famesState.original * baseRate * 2;
-            famesState.current = Math.max(0, famesState.current - (int) consumeAmount);
+            float consumeAmount = originals[fames] * baseRate * 2;
+            currents[fames] = (int) Math.max(0, currents[fames] - (long) (int) consumeAmount * ticks);
 
-            if (famesState.current <= 0) {
-                aspects.remove(FAMES_ASPECT);
+            if (currents[fames] <= 0) {
+                removeAt(fames);
             }
         }
     }
 
-    private void regenerateAspect(Identifier aspectId, AspectState state, float rate) {
-        if (state.current >= state.original) return;
+    private void regenerateAspect(int index, float rate, int ticks) {
+        int original = originals[index];
+        if (currents[index] >= original) return;
 
-        // Get or create accumulator
-        float accumulator = regenAccumulators.getOrDefault(aspectId, 0f);
-
-        // Add this tick's regeneration
-        float regenThisTick = state.original * rate;
-        accumulator += regenThisTick;
+        // Add the regeneration of all ticks since the last update
+        float accumulator = accumulators[index] + original * rate * ticks;
 
         // Convert accumulated value to integer
-        int toAdd = (int) accumulator;
+        int toAdd = (int) Math.min(accumulator, Integer.MAX_VALUE);
         if (toAdd > 0) {
-            int newCurrent = state.current + toAdd;
-            if (newCurrent > state.original) {
-                toAdd = state.original - state.current;
-                newCurrent = state.original;
+            if (toAdd >= original - currents[index]) {
+                // Full, the remaining fraction is dropped
+                currents[index] = original;
+                accumulator = 0;
+            } else {
+                currents[index] += toAdd;
+                accumulator -= toAdd;
             }
-
-            state.current = newCurrent;
-            accumulator -= toAdd;
-
-            // Debug logging
-            AspectsLib.LOGGER.debug("Regenerated {}: {}/{} (+{})",
-                    aspectId, state.current, state.original, toAdd);
         }
 
         // Store remaining fraction
-        regenAccumulators.put(aspectId, accumulator);
+        accumulators[index] = accumulator;
     }
 
     private void removeDrainedAspects() {
-        List<Identifier> toRemove = new ArrayList<>();
-        for (Map.Entry<Identifier, AspectState> entry : aspects.entrySet()) {
-            if (entry.getValue().current <= 0) {
-                toRemove.add(entry.getKey());
+        for (int i = aspectCount - 1; i >= 0; i--) {
+            if (currents[i] <= 0) {
+                removeAt(i);
             }
         }
-        for (Identifier id : toRemove) {
-            aspects.remove(id);
-        }
     }
 
-    private void handleSinisterBehavior() {
-        sinisterCounter++;
-        if (sinisterCounter >= 100) { // Every 5 seconds
-            sinisterCounter = 0;
-            RegistryEntry<Biome> biomeEntry = getWorld().getBiome(getBlockPos());
-            Identifier biomeId = biomeEntry.getKey().map(RegistryKey::getValue).orElse(null);
-
-            if (biomeId != null) {
-                DynamicAetherDensityManager.addModification(
-                        biomeId,
-                        VITIUM_ASPECT,
-                        10 // Add 10 Vitium per corruption cycle
-                );
-                AspectsLib.LOGGER.debug("Sinister node corrupting biome {} at {}", biomeId, this.getBlockPos());
-            }
+    private void handleSinisterBehavior(AuraNodeSystem system, int ticks) {
+        // Every 2.5 seconds, the counter used to be advanced twice per tick, by regeneration and by this method
+        sinisterCounter += ticks;
+        while (sinisterCounter >= 50) {
+            sinisterCounter -= 50;
+            system.addVitium(getBlockPos(), 10); // Add 10 Vitium per corruption cycle
+            AspectsLib.LOGGER.debug("Sinister node corrupting chunk at {}", this.getBlockPos());
         }
     }
 
-    private void handleHungryBehavior() {
-        hungerCounter++;
+    private void handleHungryBehavior(AuraNodeSystem system, int ticks) {
+        hungerCounter += ticks;
 
         // Consume every 10 seconds (200 ticks)
-        if (hungerCounter >= 200) {
-            hungerCounter = 0;
-            RegistryEntry<Biome> biomeEntry = getWorld().getBiome(getBlockPos());
-            Identifier biomeId = biomeEntry.getKey().map(RegistryKey::getValue).orElse(null);
+        while (hungerCounter >= 200 && !this.isRemoved()) {
+            hungerCounter -= 200;
+
+            int fames = indexOf(AspectOrdinals.get(FAMES_ASPECT));
 
             // Phase 1: Consume other aspects in the node
-            if (aspects.size() > 1) {
-                List<Identifier> nonFamesAspects = new ArrayList<>();
-                for (Identifier id : aspects.keySet()) {
-                    if (!id.equals(FAMES_ASPECT)) {
-                        nonFamesAspects.add(id);
-                    }
+            if (aspectCount > 1) {
+                int nonFamesCount = fames >= 0 ? aspectCount - 1 : aspectCount;
+                // Pick the n-th slot that does not hold Fames
+                int target = getWorld().getRandom().nextInt(nonFamesCount);
+                if (fames >= 0 && target >= fames) {
+                    target++;
                 }
 
-                if (!nonFamesAspects.isEmpty()) {
-                    Identifier target = nonFamesAspects.get(getWorld().getRandom().nextInt(nonFamesAspects.size()));
-                    AspectState state = aspects.get(target);
-
-                    // Consume 10% of the aspect
-                    int consumeAmount = Math.max(1, state.current / 10);
-                    state.current -= consumeAmount;
+                // Consume 10% of the aspect
+                int consumeAmount = Math.max(1, currents[target] / 10);
+                currents[target] -= consumeAmount;
 
-                    // If completely drained, remove with 10% chance
-                    if (state.current <= 0 && getWorld().getRandom().nextFloat() < 0.1f) {
-                        aspects.remove(target);
-                    }
+                // If completely drained, remove with 10% chance
+                if (currents[target] <= 0 && getWorld().getRandom().nextFloat() < 0.1f) {
+                    removeAt(target);
                 }
             }
             // Phase 2: Consume from environment
-            else if (aspects.containsKey(FAMES_ASPECT)) {
-                if (biomeId != null) {
-                    // Drain 5 from all aspects in the biome
-                    DynamicAetherDensityManager.drainAllAspects(biomeId, 5);
-                    AspectsLib.LOGGER.debug("Hungry node draining environment at {}", this.getBlockPos());
-                }
-
-                AspectState famesState = aspects.get(FAMES_ASPECT);
-                if (famesState.current > 0) {
-                    famesState.current = Math.max(0, famesState.current - 10);
-                    if (famesState.current <= 0) {
+            else if (fames >= 0) {
+                // Drain 5 from all aspects in the chunk
+                system.drain(getBlockPos(), 5);
+                AspectsLib.LOGGER.debug("Hungry node draining environment at {}", this.getBlockPos());
+
+                if (currents[fames] > 0) {
+                    currents[fames] = Math.max(0, currents[fames] - 10);
+                    if (currents[fames] <= 0) {
                         this.discard();
                     }
                 }
@@ -375,16 +323,16 @@ public class AuraNodeEntity extends Entity {
         }
     }
 
-    private void handleUnstableBehavior() {
-        // Check for opposing resonance every 5 seconds (100 ticks)
-        if (this.age % 100 == 0) {
+    private void handleUnstableBehavior(int ticks) {
+        // Check for opposing resonance every 5 seconds (100 ticks), once if several checks were due
+        if (this.age / 100 != (this.age - ticks) / 100) {
             // Create AspectData for resonance calculation
-            Object2IntOpenHashMap<Identifier> aspectMap = new Object2IntOpenHashMap<>();
-            for (Map.Entry<Identifier, AspectState> entry : aspects.entrySet()) {
-                aspectMap.put(entry.getKey(), entry.getValue().current);
+            Object2IntOpenHashMap<Identifier> aspectMap = new Object2IntOpenHashMap<>(aspectCount);
+            for (int i = 0; i < aspectCount; i++) {
+                aspectMap.put(AspectOrdinals.byOrdinal(ordinals[i]), currents[i]);
             }
 
-            ResonanceCalculator.ResonanceResult result = ResonanceCalculator.calculate(new AspectData(aspectMap));
+            ResonanceCalculator.ResonanceResult result = new AspectData(aspectMap).calculateResonance();
 
             // Increase instability if there's barrier cost (opposing resonance)
             if (result.barrierCost() > 0) {
@@ -400,111 +348,435 @@ public class AuraNodeEntity extends Entity {
         }
     }
 
-    private void updateTrackedAspects() {
-        NbtCompound aspectsNbt = new NbtCompound();
-        for (Map.Entry<Identifier, AspectState> entry : aspects.entrySet()) {
-            NbtCompound stateNbt = new NbtCompound();
-            stateNbt.putInt("Original", entry.getValue().original);
-            stateNbt.putInt("Current", entry.getValue().current);
-            aspectsNbt.put(entry.getKey().toString(), stateNbt);
+    int getAspectCount() {
+        return aspectCount;
+    }
+
+    int getAspectOrdinal(int index) {
+        return ordinals[index];
+    }
+
+    int getAspectCurrent(int index) {
+        return currents[index];
+    }
+
+    private int indexOf(int ordinal) {
+        for (int i = 0; i < aspectCount; i++) {
+            if (ordinals[i] == ordinal) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Aspects that are not loaded are dropped
+    private void putAspect(Identifier aspect, int original, int current) {
+        int ordinal = AspectOrdinals.get(aspect);
+        if (ordinal >= 0) {
+            putAspectByOrdinal(ordinal, original, current);
+        }
+    }
+
+    /**
+     * Sets an aspect's original and current amount, adding a slot for it if needed.
+     */
+    private void putAspectByOrdinal(int ordinal, int original, int current) {
+        int index = indexOf(ordinal);
+        if (index < 0) {
+            if (aspectCount == ordinals.length) {
+                int capacity = Math.max(4, aspectCount * 2);
+                ordinals = Arrays.copyOf(ordinals, capacity);
+                originals = Arrays.copyOf(originals, capacity);
+                currents = Arrays.copyOf(currents, capacity);
+                accumulators = Arrays.copyOf(accumulators, capacity);
+                views = Arrays.copyOf(views, capacity);
+            }
+            index = aspectCount++;
+            ordinals[index] = (short) ordinal;
+            views[index] = null;
+        }
+        originals[index] = original;
+        currents[index] = current;
+        accumulators[index] = 0;
+    }
+
+    // Moves the last slot into the removed one
+    private void removeAt(int index) {
+        aspectCount--;
+        ordinals[index] = ordinals[aspectCount];
+        originals[index] = originals[aspectCount];
+        currents[index] = currents[aspectCount];
+        accumulators[index] = accumulators[aspectCount];
+        views[index] = views[aspectCount];
+        views[aspectCount] = null;
+    }
+
+    private void clearAspects() {
+        aspectCount = 0;
+    }
+
+    /**
+     * Reads back changes made to the fields of the states handed out by {@link #getAspects()}.
+     */
+    private void pullViews() {
+        for (int i = 0; i < aspectCount; i++) {
+            AspectState view = views[i];
+            if (view != null) {
+                originals[i] = view.original;
+                currents[i] = view.current;
+            }
+        }
+    }
+
+    /**
+     * Updates the states handed out by {@link #getAspects()} after the node changed its aspects.
+     */
+    private void pushViews() {
+        for (int i = 0; i < aspectCount; i++) {
+            AspectState view = views[i];
+            if (view != null) {
+                view.original = originals[i];
+                view.current = currents[i];
+            }
         }
-        this.dataTracker.set(ASPECTS_NBT, aspectsNbt);
+    }
+
+    private AspectState viewAt(int index) {
+        AspectState view = views[index];
+        if (view == null) {
+            view = new AspectState(originals[index]);
+            view.current = currents[index];
+            views[index] = view;
+        }
+        return view;
+    }
+
+    /**
+     * Sends the aspects that changed since the last sync to all tracking players. Nothing is sent if the aspects
+     * are unchanged.
+     */
+    private void syncAspects() {
+        pushViews();
+        if (this.getWorld().isClient()) {
+            return;
+        }
+
+        // Count changes first, so nothing is allocated for an unchanged node
+        int changed = 0;
+        for (int i = 0; i < aspectCount; i++) {
+            int synced = syncedIndexOf(ordinals[i]);
+            if (synced < 0 || syncedOriginals[synced] != originals[i] || syncedCurrents[synced] != currents[i]) {
+                changed++;
+            }
+        }
+        int removed = 0;
+        for (int i = 0; i < syncedCount; i++) {
+            if (indexOf(syncedOrdinals[i]) < 0) {
+                removed++;
+            }
+        }
+        if (changed == 0 && removed == 0) {
+            return;
+        }
+
+        // Nodes created during worldgen are set up off the server thread, before anyone can track them
+        boolean onServerThread = this.getWorld().getServer() != null && this.getWorld().getServer().isOnThread();
+        if (onServerThread) {
+            AuraNodeSystem.onNodeChanged((ServerWorld) this.getWorld(), this);
+        }
+
+        Collection<ServerPlayerEntity> trackers = onServerThread ? PlayerLookup.tracking(this) : Collections.emptyList();
+        if (!trackers.isEmpty()) {
+            // Keys depend on the palette each player received, which is usually the same for all of them
+            int lastPaletteSize = -1;
+            Packet<?> packet = null;
+            for (ServerPlayerEntity player : trackers) {
+                int paletteSize = AspectPalette.getSentSize(player);
+                if (paletteSize != lastPaletteSize) {
+                    packet = createDeltaPacket(paletteSize, changed, removed);
+                    lastPaletteSize = paletteSize;
+                }
+                player.networkHandler.sendPacket(packet);
+            }
+        }
+
+        // Remember what the trackers now hold
+        if (syncedOrdinals.length < aspectCount) {
+            syncedOrdinals = new short[ordinals.length];
+            syncedOriginals = new int[ordinals.length];
+            syncedCurrents = new int[ordinals.length];
+        }
+        System.arraycopy(ordinals, 0, syncedOrdinals, 0, aspectCount);
+        System.arraycopy(originals, 0, syncedOriginals, 0, aspectCount);
+        System.arraycopy(currents, 0, syncedCurrents, 0, aspectCount);
+        syncedCount = aspectCount;
+    }
+
+    private Packet<?> createDeltaPacket(int paletteSize, int changed, int removed) {
+        PacketByteBuf buf = PacketByteBufs.create();
+        AuraNodeSyncPacket.writeHeader(buf, getId(), false, changed);
+        for (int i = 0; i < aspectCount; i++) {
+            int synced = syncedIndexOf(ordinals[i]);
+            if (synced < 0 || syncedOriginals[synced] != originals[i] || syncedCurrents[synced] != currents[i]) {
+                AuraNodeSyncPacket.writeEntry(buf, paletteSize, ordinals[i], originals[i], currents[i]);
+            }
+        }
+        buf.writeVarInt(removed);
+        for (int i = 0; i < syncedCount; i++) {
+            if (indexOf(syncedOrdinals[i]) < 0) {
+                AspectPalette.writeKey(buf, syncedOrdinals[i], paletteSize);
+            }
+        }
+        return ServerPlayNetworking.createS2CPacket(AuraNodeSyncPacket.ID, buf);
+    }
+
+    private int syncedIndexOf(int ordinal) {
+        for (int i = 0; i < syncedCount; i++) {
+            if (syncedOrdinals[i] == ordinal) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sends a new tracker the aspects the other trackers hold, so later deltas apply to all of them alike.
+     */
+    @Override
+    public void onStartedTrackingBy(ServerPlayerEntity player) {
+        super.onStartedTrackingBy(player);
+
+        int paletteSize = AspectPalette.getSentSize(player);
+        PacketByteBuf buf = PacketByteBufs.create();
+        AuraNodeSyncPacket.writeHeader(buf, getId(), true, syncedCount);
+        for (int i = 0; i < syncedCount; i++) {
+            AuraNodeSyncPacket.writeEntry(buf, paletteSize, syncedOrdinals[i], syncedOriginals[i], syncedCurrents[i]);
+        }
+        buf.writeVarInt(0);
+        ServerPlayNetworking.send(player, AuraNodeSyncPacket.ID, buf);
+    }
+
+    /**
+     * Applies an aspect update received from the server. Client side only.
+     */
+    public void applyAspectSync(AuraNodeSyncPacket.Update update) {
+        if (update.full()) {
+            clearAspects();
+        }
+        for (int ordinal : update.removed()) {
+            int index = ordinal >= 0 ? indexOf(ordinal) : -1;
+            if (index >= 0) {
+                removeAt(index);
+            }
+        }
+        for (int i = 0; i < update.ordinals().length; i++) {
+            if (update.ordinals()[i] >= 0) {
+                putAspectByOrdinal(update.ordinals()[i], update.originals()[i], update.currents()[i]);
+            }
+        }
+        pushViews();
     }
 
     @Override
     public void readCustomDataFromNbt(NbtCompound nbt) {
         // Read node type
-        this.setNodeType(NodeType.values()[nbt.getByte("NodeType")]);
+        this.setNodeType(NODE_TYPES[nbt.getByte("NodeType")]);
 
-        // Read aspects - Create AspectState with correct current value
-        aspects.clear();
+        // Read aspects with their current value
+        clearAspects();
+        unresolvedAspects = null;
         NbtList aspectsList = nbt.getList("Aspects", NbtElement.COMPOUND_TYPE);
         for (NbtElement element : aspectsList) {
             NbtCompound aspectNbt = (NbtCompound) element;
-            Identifier id = new Identifier(aspectNbt.getString("Id"));
-            int original = aspectNbt.getInt("Original");
-            int current = aspectNbt.getInt("Current");
-
-            // Create AspectState with proper current value
-            AspectState state = new AspectState(original);
-            state.current = current;
-            aspects.put(id, state);
+            Identifier id = Identifier.tryParse(aspectNbt.getString("Id"));
+            int ordinal = id != null ? AspectOrdinals.get(id) : -1;
+            if (ordinal >= 0) {
+                putAspectByOrdinal(ordinal, aspectNbt.getInt("Original"), aspectNbt.getInt("Current"));
+            } else {
+                if (unresolvedAspects == null) {
+                    unresolvedAspects = new NbtList();
+                }
+                unresolvedAspects.add(aspectNbt.copy());
+            }
         }
 
         instabilityCounter = nbt.getInt("Instability");
         hungerCounter = nbt.getInt("HungerCounter");
+
+        syncAspects();
     }
 
     @Override
     public void writeCustomDataToNbt(NbtCompound nbt) {
+        pullViews();
         nbt.putByte("NodeType", (byte) getNodeType().ordinal());
 
         NbtList aspectsList = new NbtList();
-        for (Map.Entry<Identifier, AspectState> entry : aspects.entrySet()) {
+        for (int i = 0; i < aspectCount; i++) {
             NbtCompound aspectNbt = new NbtCompound();
-            aspectNbt.putString("Id", entry.getKey().toString());
-            aspectNbt.putInt("Original", entry.getValue().original);
-            aspectNbt.putInt("Current", entry.getValue().current);
+            aspectNbt.putString("Id", AspectOrdinals.nameOf(ordinals[i]));
+            aspectNbt.putInt("Original", originals[i]);
+            aspectNbt.putInt("Current", currents[i]);
             aspectsList.add(aspectNbt);
         }
+        if (unresolvedAspects != null) {
+            for (NbtElement element : unresolvedAspects) {
+                aspectsList.add(element.copy());
+            }
+        }
         nbt.put("Aspects", aspectsList);
 
         nbt.putInt("Instability", instabilityCounter);
         nbt.putInt("HungerCounter", hungerCounter);
     }
 
-    protected void readCustomDataFromTrackedData() {
-        this.setNodeType(NodeType.values()[dataTracker.get(NODE_TYPE)]);
-
-        // Update aspects from tracked data
-        NbtCompound aspectsNbt = dataTracker.get(ASPECTS_NBT);
-        aspects.clear();
-        for (String key : aspectsNbt.getKeys()) {
-            Identifier id = new Identifier(key);
-            NbtCompound stateNbt = aspectsNbt.getCompound(key);
-            int original = stateNbt.getInt("Original");
-            int current = stateNbt.getInt("Current");
-            aspects.put(id, new AspectState(original) {{
-                this.current = current;
-            }});
-        }
-    }
-
     // Getters and setters
     public NodeType getNodeType() {
-        return NodeType.values()[dataTracker.get(NODE_TYPE)];
+        return NODE_TYPES[dataTracker.get(NODE_TYPE)];
     }
 
     public void setNodeType(NodeType type) {
         dataTracker.set(NODE_TYPE, type.ordinal());
     }
 
+    /**
+     * Gets an unmodifiable live view of the node's aspects.
+     * <p>
+     * Changes to the fields of the returned states are written back to the node at its next update, save or
+     * explicit change, and synced from there. {@link #drainAspect} and {@link #setAspectCurrent} apply and sync a
+     * change immediately.
+     */
     public Map<Identifier, AspectState> getAspects() {
-        return Collections.unmodifiableMap(aspects);
+        pullViews();
+        return aspectView;
     }
 
+    private final Map<Identifier, AspectState> aspectView = new AbstractMap<>() {
+        @Override
+        public AspectState get(Object key) {
+            int index = key instanceof Identifier id ? indexOf(AspectOrdinals.get(id)) : -1;
+            return index >= 0 ? viewAt(index) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Identifier id && indexOf(AspectOrdinals.get(id)) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return aspectCount;
+        }
+
+        @Override
+        public Set<Entry<Identifier, AspectState>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Identifier, AspectState>> iterator() {
+                    return new Iterator<>() {
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < aspectCount;
+                        }
+
+                        @Override
+                        public Entry<Identifier, AspectState> next() {
+                            if (index >= aspectCount) {
+                                throw new NoSuchElementException();
+                            }
+                            int slot = index++;
+                            return new SimpleImmutableEntry<>(AspectOrdinals.byOrdinal(ordinals[slot]), viewAt(slot));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return aspectCount;
+                }
+            };
+        }
+    };
+
+    /**
+     * Drains up to the given amount of an aspect from the node.
+     *
+     * @return The amount actually drained, 0 if the node does not hold the aspect.
+     */
+    public int drainAspect(Identifier aspect, int amount) {
+        pullViews();
+        int index = indexOf(AspectOrdinals.get(aspect));
+        if (index < 0 || amount <= 0) {
+            return 0;
+        }
+        int drained = Math.min(amount, currents[index]);
+        currents[index] -= drained;
+        syncAspects();
+        return drained;
+    }
+
+    /**
+     * Sets the current amount of an aspect the node holds, clamped to be at least 0. Aspects the node does not
+     * hold are ignored.
+     *
+     * @return Whether the node holds the aspect.
+     */
+    public boolean setAspectCurrent(Identifier aspect, int current) {
+        pullViews();
+        int index = indexOf(AspectOrdinals.get(aspect));
+        if (index < 0) {
+            return false;
+        }
+        currents[index] = Math.max(0, current);
+        syncAspects();
+        return true;
+    }
+
+    /**
+     * Replaces all aspects of the node, including saved aspects that are not loaded.
+     */
     public void setAspects(Map<Identifier, AspectState> aspects) {
-        this.aspects = new HashMap<>(aspects);
-        updateTrackedAspects();
+        // Copy first, the map may be this node's own view
+        aspects = new HashMap<>(aspects);
+        clearAspects();
+        unresolvedAspects = null;
+        for (Map.Entry<Identifier, AspectState> entry : aspects.entrySet()) {
+            putAspect(entry.getKey(), entry.getValue().original, entry.getValue().current);
+        }
+        syncAspects();
     }
 
+    /**
+     * Initializes the aspects from the aspect table of the biome the node is in.
+     */
     public void initializeAspects(Random random) {
-        aspects.clear();
+        initializeAspects(random, AetherDensityManager.getBiomeId(getWorld(), getWorld().getBiome(getBlockPos())));
+    }
+
+    /**
+     * Initializes the aspects from the aspect table of a biome, see {@link AuraNodeAspectManager}.
+     */
+    public void initializeAspects(Random random, @Nullable Identifier biomeId) {
+        clearAspects();
+        unresolvedAspects = null;
+        AuraNodeAspectManager.AspectTable table = AuraNodeAspectManager.getTable(biomeId);
 
         switch (getNodeType()) {
             case PURE:
                 // Pure node has only one aspect
-                Identifier aspect = getRandomAspect(random, 0.95f); // 95% chance for primal
-                aspects.put(aspect, new AspectState(random.nextInt(100) + 50));
+                putRandomAspect(table, random, 0.95f); // 95% chance for primal
                 break;
 
             case HUNGRY:
                 // Hungry node always has Fames
-                aspects.put(FAMES_ASPECT, new AspectState(random.nextInt(100) + 50));
+                int famesAmount = random.nextInt(100) + 50;
+                putAspect(FAMES_ASPECT, famesAmount, famesAmount);
 
                 // 50% chance to have one additional aspect
                 if (random.nextBoolean()) {
-                    aspects.put(getRandomAspect(random, 0.9f), new AspectState(random.nextInt(100) + 50));
+                    putRandomAspect(table, random, 0.9f);
                 }
                 break;
 
@@ -512,63 +784,19 @@ public class AuraNodeEntity extends Entity {
                 // Normal, Sinister, Unstable: 1-4 aspects
                 int count = random.nextInt(4) + 1;
                 for (int i = 0; i < count; i++) {
-                    Identifier newAspect = getRandomAspect(random, 0.8f); // 80% chance for primal
-                    aspects.put(newAspect, new AspectState(random.nextInt(100) + 50));
+                    putRandomAspect(table, random, 0.8f); // 80% chance for primal
                 }
         }
 
-        updateTrackedAspects();
+        syncAspects();
     }
 
-    private Identifier getRandomAspect(Random random, float primalChance) {
-        // Organize aspects by tier
-        List<Identifier> primal = Arrays.asList(
-                AspectsLib.identifier("aer"), AspectsLib.identifier("aqua"), AspectsLib.identifier("ignis"),
-                AspectsLib.identifier("ordo"), AspectsLib.identifier("perditio"), AspectsLib.identifier("terra")
-        );
-
-        List<Identifier> secondary = Arrays.asList(
-                AspectsLib.identifier("gelum"), AspectsLib.identifier("lux"), AspectsLib.identifier("metallum"),
-                AspectsLib.identifier("mortuus"), AspectsLib.identifier("motus"), AspectsLib.identifier("permutatio"),
-                AspectsLib.identifier("potentia"), AspectsLib.identifier("vacuos"), AspectsLib.identifier("victus"),
-                AspectsLib.identifier("vitreus")
-        );
-
-        List<Identifier> tertiary = Arrays.asList(
-                AspectsLib.identifier("bestia"), AspectsLib.identifier("fames"), AspectsLib.identifier("exanimis"),
-                AspectsLib.identifier("herba"), AspectsLib.identifier("instrumentum"), AspectsLib.identifier("praecantatio"),
-                AspectsLib.identifier("spiritus"), AspectsLib.identifier("tenebrae"), AspectsLib.identifier("vinculum"),
-                AspectsLib.identifier("volatus")
-        );
-
-        List<Identifier> quaternary = Arrays.asList(
-                AspectsLib.identifier("alienis"), AspectsLib.identifier("alkimia"), AspectsLib.identifier("auram"),
-                AspectsLib.identifier("aversion"), AspectsLib.identifier("cognitio"), AspectsLib.identifier("desiderium"),
-                AspectsLib.identifier("fabrico"), AspectsLib.identifier("humanus"), AspectsLib.identifier("machina"),
-                AspectsLib.identifier("praemunio"), AspectsLib.identifier("sensus"), AspectsLib.identifier("vitium")
-        );
-
-        // Safety checks for empty lists
-        if (random.nextFloat() < primalChance && !primal.isEmpty()) {
-            return primal.get(random.nextInt(primal.size()));
+    private void putRandomAspect(AuraNodeAspectManager.AspectTable table, Random random, float primalChance) {
+        Identifier aspect = table.sample(random, primalChance);
+        int amount = random.nextInt(100) + 50;
+        if (aspect != null) {
+            putAspect(aspect, amount, amount);
         }
-
-        float roll = random.nextFloat();
-        if (roll < 0.6f && !secondary.isEmpty()) {
-            return secondary.get(random.nextInt(secondary.size()));
-        } else if (roll < 0.9f && !tertiary.isEmpty()) {
-            return tertiary.get(random.nextInt(tertiary.size()));
-        } else if (!quaternary.isEmpty()) {
-            return quaternary.get(random.nextInt(quaternary.size()));
-        }
-
-        // Fallback to primal if nothing else available
-        return !primal.isEmpty() ? primal.get(random.nextInt(primal.size())) : AspectsLib.identifier("aer");
-    }
-
-    public static boolean isValidNaturalSpawn(EntityType<? extends AuraNodeEntity> type,
-                                              WorldAccess world, SpawnReason spawnReason, BlockPos pos, Random random) {
-        return true;//todo conditions
     }
 
     @Override
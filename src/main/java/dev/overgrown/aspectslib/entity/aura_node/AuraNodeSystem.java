@@ -0,0 +1,416 @@
+package dev.overgrown.aspectslib.entity.aura_node;
+
+import dev.overgrown.aspectslib.aether.DynamicAetherDensityManager;
+import dev.overgrown.aspectslib.data.AspectData;
+import dev.overgrown.aspectslib.data.AspectOrdinals;
+import it.unimi.dsi.fastutil.longs.Long2DoubleMap;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Simulates the aura nodes of one world.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ * <li>Tracks the loaded aura nodes of the world, grouped by node type</li>
+ * <li>Updates all nodes in one pass every {@link #setUpdateInterval update interval}, advancing them by the
+ * ticks passed since their last update</li>
+ * <li>Applies the aether nodes add to or drain from their chunk once per chunk and pass</li>
+ * <li>Indexes nodes by region for spatial queries, and sums the aspects of the nodes in each region</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Nodes are registered on entity load and unregistered on unload from {@link dev.overgrown.aspectslib.AspectsLib}</li>
+ * <li>Ticked per world from {@link dev.overgrown.aspectslib.AspectsLib}</li>
+ * <li>Queried through {@link dev.overgrown.aspectslib.api.AspectsAPI#findNodes} and related methods, on the server
+ * thread only</li>
+ * </p>
+ * Only loaded nodes are registered and a node's clock starts when it is registered, so nodes in unloaded chunks
+ * cost nothing and do not catch up on the time they spent unloaded.
+ * <br>
+ * Nodes do not look up biomes or densities while they are updated, only when their aspects are first rolled. The
+ * per-chunk work of a pass is the aether they add or drain, which is summed per chunk and applied with one chunk
+ * lookup per chunk.
+ * <br>
+ * Regions are columns of {@code 64x64} blocks. A region's aspect totals are rebuilt on the first query after one of
+ * its nodes synced a change, so totals cost nothing unless someone asks for them.
+ */
+public class AuraNodeSystem {
+
+    private static final Map<RegistryKey<World>, AuraNodeSystem> SYSTEMS = new ConcurrentHashMap<>();
+    private static final AuraNodeEntity.NodeType[] NODE_TYPES = AuraNodeEntity.NodeType.values();
+
+    private static volatile int updateInterval = 20;
+
+    /**
+     * Regions are {@code 1 << REGION_SHIFT} blocks wide.
+     */
+    private static final int REGION_SHIFT = 6;
+
+    // Registered nodes per node type ordinal
+    @SuppressWarnings("unchecked")
+    private final ReferenceOpenHashSet<AuraNodeEntity>[] nodesByType = new ReferenceOpenHashSet[NODE_TYPES.length];
+
+    // Aether changes of the current pass per chunk
+    private final Long2DoubleOpenHashMap vitiumByChunk = new Long2DoubleOpenHashMap();
+    private final Long2DoubleOpenHashMap drainByChunk = new Long2DoubleOpenHashMap();
+
+    private final Long2ObjectOpenHashMap<Region> regions = new Long2ObjectOpenHashMap<>();
+
+    // Set while a pass iterates the node sets. Nodes that unload meanwhile, e.g. by discarding themselves, are
+    // queued and dropped after the pass, so the sets are not modified under the iterators.
+    private boolean updating = false;
+    private final List<AuraNodeEntity> unloadedDuringUpdate = new ArrayList<>();
+
+    private AuraNodeSystem() {
+        for (int i = 0; i < nodesByType.length; i++) {
+            nodesByType[i] = new ReferenceOpenHashSet<>();
+        }
+    }
+
+    public static AuraNodeSystem get(ServerWorld world) {
+        return SYSTEMS.computeIfAbsent(world.getRegistryKey(), key -> new AuraNodeSystem());
+    }
+
+    /**
+     * Sets how many ticks pass between two updates of a node. Longer intervals do the same work in fewer, larger
+     * steps.
+     */
+    public static void setUpdateInterval(int ticks) {
+        updateInterval = Math.max(1, ticks);
+    }
+
+    public static int getUpdateInterval() {
+        return updateInterval;
+    }
+
+    public static void onNodeLoad(ServerWorld world, AuraNodeEntity node) {
+        node.lastUpdateTime = world.getTime();
+        AuraNodeSystem system = get(world);
+        if (system.nodesByType[node.getNodeType().ordinal()].add(node)) {
+            system.index(node);
+        }
+    }
+
+    public static void onNodeUnload(ServerWorld world, AuraNodeEntity node) {
+        AuraNodeSystem system = SYSTEMS.get(world.getRegistryKey());
+        if (system != null) {
+            if (system.updating) {
+                system.unloadedDuringUpdate.add(node);
+            } else {
+                system.remove(node);
+            }
+        }
+    }
+
+    private void remove(AuraNodeEntity node) {
+        for (ReferenceOpenHashSet<AuraNodeEntity> nodes : nodesByType) {
+            if (nodes.remove(node)) {
+                unindex(node);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Marks the region totals of a node outdated after its aspects changed.
+     */
+    static void onNodeChanged(ServerWorld world, AuraNodeEntity node) {
+        AuraNodeSystem system = SYSTEMS.get(world.getRegistryKey());
+        if (system != null) {
+            Region region = system.regions.get(node.regionKey);
+            if (region != null) {
+                region.totals = null;
+            }
+        }
+    }
+
+    /**
+     * Finds the loaded nodes within a radius of a position.
+     */
+    public static List<AuraNodeEntity> findNodes(ServerWorld world, BlockPos pos, double radius) {
+        AuraNodeSystem system = SYSTEMS.get(world.getRegistryKey());
+        if (system == null) {
+            return Collections.emptyList();
+        }
+
+        Vec3d center = pos.toCenterPos();
+        double maxDistance = radius * radius;
+        int minX = MathHelper.floor(center.x - radius) >> REGION_SHIFT;
+        int maxX = MathHelper.floor(center.x + radius) >> REGION_SHIFT;
+        int minZ = MathHelper.floor(center.z - radius) >> REGION_SHIFT;
+        int maxZ = MathHelper.floor(center.z + radius) >> REGION_SHIFT;
+
+        List<AuraNodeEntity> found = new ArrayList<>();
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                Region region = system.regions.get(ChunkPos.toLong(x, z));
+                if (region == null) continue;
+
+                for (AuraNodeEntity node : region.nodes) {
+                    if (!node.isRemoved() && node.squaredDistanceTo(center) <= maxDistance) {
+                        found.add(node);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the loaded node closest to a position, searching region rings outwards.
+     *
+     * @param maxRadius How many blocks away from the position to search.
+     * @return The closest node, or null if there is none within the radius.
+     */
+    @Nullable
+    public static AuraNodeEntity findNearestNode(ServerWorld world, BlockPos pos, double maxRadius) {
+        AuraNodeSystem system = SYSTEMS.get(world.getRegistryKey());
+        if (system == null) {
+            return null;
+        }
+
+        Vec3d center = pos.toCenterPos();
+        int centerX = pos.getX() >> REGION_SHIFT;
+        int centerZ = pos.getZ() >> REGION_SHIFT;
+        int maxRing = (MathHelper.ceil(maxRadius) >> REGION_SHIFT) + 1;
+        AuraNodeEntity nearest = null;
+        double nearestDistance = maxRadius * maxRadius;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Any node in a farther ring is at least (ring - 1) region widths away
+            double ringDistance = Math.max(0, ring - 1) * (double) (1 << REGION_SHIFT);
+            if (ringDistance * ringDistance > nearestDistance) {
+                break;
+            }
+
+            for (int dx = -ring; dx <= ring; dx++) {
+                for (int dz = -ring; dz <= ring; dz++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dz)) != ring) continue;
+
+                    Region region = system.regions.get(ChunkPos.toLong(centerX + dx, centerZ + dz));
+                    if (region == null) continue;
+
+                    for (AuraNodeEntity node : region.nodes) {
+                        double distance = node.squaredDistanceTo(center);
+                        if (!node.isRemoved() && distance <= nearestDistance) {
+                            nearestDistance = distance;
+                            nearest = node;
+                        }
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Gets the summed current aspects of all loaded nodes in the region containing a position.
+     */
+    public static AspectData getRegionAura(ServerWorld world, BlockPos pos) {
+        AuraNodeSystem system = SYSTEMS.get(world.getRegistryKey());
+        if (system == null) {
+            return AspectData.DEFAULT;
+        }
+        Region region = system.regions.get(regionKey(pos));
+        return region != null ? region.getTotals() : AspectData.DEFAULT;
+    }
+
+    /**
+     * Gets the width of the regions used by {@link #getRegionAura}, in blocks.
+     */
+    public static int getRegionSize() {
+        return 1 << REGION_SHIFT;
+    }
+
+    public static void onWorldUnload(ServerWorld world) {
+        SYSTEMS.remove(world.getRegistryKey());
+    }
+
+    public static void reset() {
+        SYSTEMS.clear();
+    }
+
+    public static void tick(ServerWorld world) {
+        AuraNodeSystem system = SYSTEMS.get(world.getRegistryKey());
+        if (system != null && world.getTime() % updateInterval == 0) {
+            system.update(world);
+        }
+    }
+
+    /**
+     * Gets the number of nodes registered in a world.
+     */
+    public static int getNodeCount(ServerWorld world) {
+        AuraNodeSystem system = SYSTEMS.get(world.getRegistryKey());
+        if (system == null) {
+            return 0;
+        }
+        int count = 0;
+        for (ReferenceOpenHashSet<AuraNodeEntity> nodes : system.nodesByType) {
+            count += nodes.size();
+        }
+        return count;
+    }
+
+    private void update(ServerWorld world) {
+        long time = world.getTime();
+
+        updating = true;
+        try {
+            updateNodes(time);
+        } finally {
+            updating = false;
+        }
+        for (AuraNodeEntity node : unloadedDuringUpdate) {
+            remove(node);
+        }
+        unloadedDuringUpdate.clear();
+
+        applyAetherChanges(world);
+    }
+
+    private void updateNodes(long time) {
+        for (AuraNodeEntity.NodeType type : NODE_TYPES) {
+            Iterator<AuraNodeEntity> iterator = nodesByType[type.ordinal()].iterator();
+            while (iterator.hasNext()) {
+                AuraNodeEntity node = iterator.next();
+                if (node.isRemoved()) {
+                    iterator.remove();
+                    unindex(node);
+                    continue;
+                }
+
+                // Nodes whose type changed move to their new group and are updated there
+                AuraNodeEntity.NodeType nodeType = node.getNodeType();
+                if (nodeType != type) {
+                    iterator.remove();
+                    nodesByType[nodeType.ordinal()].add(node);
+                    if (nodeType.ordinal() < type.ordinal()) {
+                        updateNode(node, nodeType, time);
+                    }
+                    continue;
+                }
+
+                updateNode(node, type, time);
+            }
+        }
+    }
+
+    private void updateNode(AuraNodeEntity node, AuraNodeEntity.NodeType type, long time) {
+        int ticks = (int) Math.min(Integer.MAX_VALUE, time - node.lastUpdateTime);
+        node.lastUpdateTime = time;
+        if (ticks > 0) {
+            node.update(this, type, ticks);
+        }
+
+        // Follow nodes that were moved, e.g. by a command
+        if (!node.isRemoved() && regionKey(node.getBlockPos()) != node.regionKey) {
+            unindex(node);
+            index(node);
+        }
+    }
+
+    private static long regionKey(BlockPos pos) {
+        return ChunkPos.toLong(pos.getX() >> REGION_SHIFT, pos.getZ() >> REGION_SHIFT);
+    }
+
+    private void index(AuraNodeEntity node) {
+        node.regionKey = regionKey(node.getBlockPos());
+        Region region = regions.computeIfAbsent(node.regionKey, key -> new Region());
+        region.nodes.add(node);
+        region.totals = null;
+    }
+
+    private void unindex(AuraNodeEntity node) {
+        Region region = regions.get(node.regionKey);
+        if (region != null && region.nodes.remove(node)) {
+            region.totals = null;
+            if (region.nodes.isEmpty()) {
+                regions.remove(node.regionKey);
+            }
+        }
+    }
+
+    void addVitium(BlockPos pos, double amount) {
+        vitiumByChunk.addTo(ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4), amount);
+    }
+
+    void drain(BlockPos pos, double amount) {
+        drainByChunk.addTo(ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4), amount);
+    }
+
+    /**
+     * Applies the summed aether changes of the pass, resolving every affected chunk once. Chunks that were unloaded
+     * during the pass are skipped rather than loaded again.
+     */
+    private void applyAetherChanges(ServerWorld world) {
+        for (Long2DoubleMap.Entry entry : vitiumByChunk.long2DoubleEntrySet()) {
+            long key = entry.getLongKey();
+            WorldChunk chunk = getLoadedChunk(world, key);
+            if (chunk == null) {
+                continue;
+            }
+            DynamicAetherDensityManager.addModification(world, chunk, AuraNodeEntity.VITIUM_ASPECT, entry.getDoubleValue());
+
+            // Chunks holding both sinister and hungry nodes are drained with the same lookup
+            if (drainByChunk.containsKey(key)) {
+                DynamicAetherDensityManager.drainAllAspects(world, chunk, drainByChunk.remove(key));
+            }
+        }
+        for (Long2DoubleMap.Entry entry : drainByChunk.long2DoubleEntrySet()) {
+            WorldChunk chunk = getLoadedChunk(world, entry.getLongKey());
+            if (chunk != null) {
+                DynamicAetherDensityManager.drainAllAspects(world, chunk, entry.getDoubleValue());
+            }
+        }
+        vitiumByChunk.clear();
+        drainByChunk.clear();
+    }
+
+    @Nullable
+    private static WorldChunk getLoadedChunk(ServerWorld world, long key) {
+        return world.getChunkManager().getWorldChunk(ChunkPos.getPackedX(key), ChunkPos.getPackedZ(key));
+    }
+
+    private static class Region {
+        private final List<AuraNodeEntity> nodes = new ArrayList<>(2);
+
+        // Summed current aspects of the nodes, null when outdated
+        @Nullable
+        private AspectData totals;
+
+        private AspectData getTotals() {
+            if (totals == null) {
+                Object2IntOpenHashMap<Identifier> sums = new Object2IntOpenHashMap<>();
+                for (AuraNodeEntity node : nodes) {
+                    for (int i = 0; i < node.getAspectCount(); i++) {
+                        sums.addTo(AspectOrdinals.byOrdinal(node.getAspectOrdinal(i)), node.getAspectCurrent(i));
+                    }
+                }
+                totals = new AspectData(sums).intern();
+            }
+            return totals;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package dev.overgrown.aspectslib.entity.aura_node.world;
+
+import com.mojang.serialization.Codec;
+import dev.overgrown.aspectslib.aether.AetherDensity;
+import dev.overgrown.aspectslib.aether.BiomeAetherDensityManager;
+import dev.overgrown.aspectslib.entity.aura_node.AuraNodeEntity;
+import dev.overgrown.aspectslib.registry.ModEntities;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.random.Random;
+import net.minecraft.world.StructureWorldAccess;
+import net.minecraft.world.gen.feature.DefaultFeatureConfig;
+import net.minecraft.world.gen.feature.Feature;
+import net.minecraft.world.gen.feature.util.FeatureContext;
+
+/**
+ * Places aura nodes while chunks generate.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ * <li>Decides per chunk whether a node generates, more likely in biomes with a high aether density</li>
+ * <li>Rolls the node type and initializes its aspects from the biome's aspect table</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Placed once per chunk by the {@code aspectslib:aura_node} placed feature, in biomes tagged
+ * {@code aspectslib:spawns}</li>
+ * </p>
+ * The feature random is seeded from the world seed and the chunk position, so the same seed generates the same
+ * nodes. Nodes are saved with the chunk like any other generated entity and never spawn at runtime.
+ */
+public class AuraNodeFeature extends Feature<DefaultFeatureConfig> {
+
+    /**
+     * Chance for a node per chunk in a biome with the reference density.
+     */
+    private static final float BASE_CHANCE = 1.0f / 24.0f;
+
+    /**
+     * Total biome aether density at which the base chance applies. Denser biomes approach twice the base chance,
+     * biomes without aether get half of it.
+     */
+    private static final double REFERENCE_DENSITY = 8.0;
+
+    public AuraNodeFeature(Codec<DefaultFeatureConfig> codec) {
+        super(codec);
+    }
+
+    @Override
+    public boolean generate(FeatureContext<DefaultFeatureConfig> context) {
+        StructureWorldAccess world = context.getWorld();
+        Random random = context.getRandom();
+        BlockPos origin = context.getOrigin();
+
+        Identifier biomeId = world.getBiome(origin).getKey().map(RegistryKey::getValue).orElse(null);
+        AetherDensity density = biomeId != null ?
+                BiomeAetherDensityManager.DENSITY_MAP.getOrDefault(biomeId, AetherDensity.EMPTY) :
+                AetherDensity.EMPTY;
+        double total = Math.max(0, density.getTotal());
+        double chance = BASE_CHANCE * (0.5 + 1.5 * total / (total + REFERENCE_DENSITY));
+        if (random.nextFloat() >= chance) {
+            return false;
+        }
+
+        // Float a few blocks above the surface
+        BlockPos pos = origin.up(2 + random.nextInt(8));
+        if (!world.getBlockState(pos).isAir()) {
+            return false;
+        }
+
+        ServerWorld serverWorld = world.toServerWorld();
+        AuraNodeEntity node = new AuraNodeEntity(ModEntities.AURA_NODE, serverWorld);
+        node.refreshPositionAndAngles(pos.getX() + 0.5, pos.getY(), pos.getZ() + 0.5, 0.0f, 0.0f);
+        node.setNodeType(rollNodeType(random));
+        node.initializeAspects(random, biomeId);
+        return world.spawnEntity(node);
+    }
+
+    private static AuraNodeEntity.NodeType rollNodeType(Random random) {
+        float roll = random.nextFloat();
+        if (roll < 0.0056f) { // 0.56%
+            return AuraNodeEntity.NodeType.HUNGRY;
+        } else if (roll < 0.0056f + 0.0167f) { // 0.56% + 1.67% = 2.23%
+            return AuraNodeEntity.NodeType.PURE;
+        } else if (roll < 0.0056f + 0.0167f + 0.0167f) { // 2.23% + 1.67% = 3.9%
+            return AuraNodeEntity.NodeType.SINISTER;
+        } else if (roll < 0.0056f + 0.0167f + 0.0167f + 0.0167f) { // 3.9% + 1.67% = 5.57%
+            return AuraNodeEntity.NodeType.UNSTABLE;
+        }
+        return random.nextFloat() < 0.8f ?
+                AuraNodeEntity.NodeType.NORMAL :
+                AuraNodeEntity.NodeType.UNSTABLE;
+    }
+}
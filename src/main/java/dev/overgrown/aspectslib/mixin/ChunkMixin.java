@@ -0,0 +1,29 @@
+package dev.overgrown.aspectslib.mixin;
+
+import dev.overgrown.aspectslib.aether.AetherField;
+import dev.overgrown.aspectslib.api.IAetherFieldHolder;
+import net.minecraft.world.chunk.Chunk;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+@Mixin(Chunk.class)
+public abstract class ChunkMixin implements IAetherFieldHolder {
+
+    @Unique
+    private AetherField aspectslib$aetherField;
+
+    @Unique
+    @Override
+    public AetherField aspectslib$getAetherField() {
+        if (this.aspectslib$aetherField == null) {
+            this.aspectslib$aetherField = new AetherField();
+        }
+        return this.aspectslib$aetherField;
+    }
+
+    @Unique
+    @Override
+    public void aspectslib$setAetherField(AetherField field) {
+        this.aspectslib$aetherField = field;
+    }
+}
@@ -0,0 +1,53 @@
+package dev.overgrown.aspectslib.mixin;
+
+import dev.overgrown.aspectslib.AspectsLib;
+import dev.overgrown.aspectslib.aether.AetherField;
+import dev.overgrown.aspectslib.api.IAetherFieldHolder;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.ChunkSerializer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ProtoChunk;
+import net.minecraft.world.chunk.ReadOnlyChunk;
+import net.minecraft.world.poi.PointOfInterestStorage;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Saves the aether field of a chunk along with the chunk, so it is stored in the region file.
+ * <p>
+ * The field is written as the aspect identifiers plus one long array holding the raw bits of the offsets, and only
+ * if it is non-empty. Identifiers are written because aspect ordinals are not stable between sessions.
+ */
+@Mixin(ChunkSerializer.class)
+public abstract class ChunkSerializerMixin {
+
+    @Unique
+    private static final String AETHER_FIELD_KEY = AspectsLib.MOD_ID + ":aether_field";
+
+    @Inject(method = "serialize", at = @At("RETURN"))
+    private static void aspectslib$writeAetherField(ServerWorld world, Chunk chunk, CallbackInfoReturnable<NbtCompound> cir) {
+        AetherField field = ((IAetherFieldHolder) chunk).aspectslib$getAetherField();
+        if (!field.isEmpty()) {
+            cir.getReturnValue().put(AETHER_FIELD_KEY, field.toNbt());
+        }
+    }
+
+    @Inject(method = "deserialize", at = @At("RETURN"))
+    private static void aspectslib$readAetherField(ServerWorld world, PointOfInterestStorage poiStorage, ChunkPos chunkPos,
+                                                   NbtCompound nbt, CallbackInfoReturnable<ProtoChunk> cir) {
+        if (!nbt.contains(AETHER_FIELD_KEY, NbtElement.COMPOUND_TYPE)) {
+            return;
+        }
+
+        // Full chunks are returned wrapped, the wrapped chunk is the one that gets loaded into the world
+        ProtoChunk protoChunk = cir.getReturnValue();
+        Chunk chunk = protoChunk instanceof ReadOnlyChunk readOnlyChunk ? readOnlyChunk.getWrappedChunk() : protoChunk;
+        ((IAetherFieldHolder) chunk).aspectslib$setAetherField(AetherField.fromNbt(nbt.getCompound(AETHER_FIELD_KEY)));
+    }
+}
@@ -2,14 +2,10 @@ package dev.overgrown.aspectslib.mixin;
 
 import dev.overgrown.aspectslib.api.IAspectDataProvider;
 import dev.overgrown.aspectslib.data.AspectData;
-import dev.overgrown.aspectslib.data.ItemAspectRegistry;
-import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import dev.overgrown.aspectslib.data.ItemAspectCache;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NbtCompound;
-import net.minecraft.registry.Registries;
-import net.minecraft.registry.tag.TagKey;
-import net.minecraft.util.Identifier;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.Unique;
@@ -18,7 +14,6 @@ import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
-import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -33,7 +28,7 @@ import java.util.Objects;
  * <p>
  * Important Connections:
  * <li>{@link IAspectDataProvider}: Interface implemented by this mixin</li>
- * <li>{@link ItemAspectRegistry}: Source of default item aspects</li>
+ * <li>{@link ItemAspectCache}: Source of resolved default item aspects</li>
  * <li>{@link AspectData}: Actual aspect storage</li>
  */
 
@@ -88,33 +83,8 @@ public abstract class ItemStackMixin implements IAspectDataProvider {
             return;
         }
 
-        // Build from registry defaults
-        AspectData aspectData = new AspectData(new Object2IntOpenHashMap<>());
-        Identifier itemId = Registries.ITEM.getId(getItem());
-        ItemStack self = (ItemStack) (Object) this; // Use self for registry entry
-
-        // Direct item registration
-        if (ItemAspectRegistry.contains(itemId)) {
-            aspectData = aspectData.addAspect(ItemAspectRegistry.get(itemId));
-        }
-
-        // Tag-based registrations
-        for (Map.Entry<Identifier, AspectData> entry : ItemAspectRegistry.entries()) {
-            Identifier id = entry.getKey();
-            AspectData itemAspectData = entry.getValue();
-
-            // Exact match
-            if (itemId.equals(id)) {
-                aspectData = aspectData.addAspect(itemAspectData);
-            }
-
-            // Tag match
-            TagKey<Item> tagKey = TagKey.of(Registries.ITEM.getKey(), id);
-            if (self.getRegistryEntry().isIn(tagKey)) {
-                aspectData = aspectData.addAspect(itemAspectData);
-            }
-        }
-
+        // Resolved registry defaults, shared between all stacks of this item
+        AspectData aspectData = ItemAspectCache.get(getItem());
         aspectslib$cachedAspectData = aspectData.isEmpty() ? null : aspectData;
     }
 
@@ -125,15 +95,14 @@ public abstract class ItemStackMixin implements IAspectDataProvider {
         aspectslib$cachedAspectData = null;
     }
 
-    /** Copy aspect data when item is copied */
+    /** Share aspect data with the copy; the copy already carries the same NBT, so nothing is written */
     @Inject(method = "copy", at = @At("RETURN"))
     private void onCopy(CallbackInfoReturnable<ItemStack> cir) {
         ItemStack copy = cir.getReturnValue();
-        if (aspectslib$cachedAspectData != null && !aspectslib$cachedAspectData.isEmpty()) {
-            IAspectDataProvider copyProvider = (IAspectDataProvider) (Object) copy;
-            if (copyProvider != null) {
-                copyProvider.aspectslib$setAspectData(aspectslib$cachedAspectData);
-            }
+        if (aspectslib$aspectDataInitialized && !copy.isEmpty()) {
+            ItemStackMixin copyMixin = (ItemStackMixin) (Object) copy;
+            copyMixin.aspectslib$cachedAspectData = aspectslib$cachedAspectData;
+            copyMixin.aspectslib$aspectDataInitialized = true;
         }
     }
-}
\ No newline at end of file
+}
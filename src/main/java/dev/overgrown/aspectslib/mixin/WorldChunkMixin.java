@@ -0,0 +1,23 @@
+package dev.overgrown.aspectslib.mixin;
+
+import dev.overgrown.aspectslib.api.IAetherFieldHolder;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.chunk.ProtoChunk;
+import net.minecraft.world.chunk.WorldChunk;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Carries the aether field over when a generated chunk is promoted to a full chunk.
+ */
+@Mixin(WorldChunk.class)
+public abstract class WorldChunkMixin {
+
+    @Inject(method = "<init>(Lnet/minecraft/server/world/ServerWorld;Lnet/minecraft/world/chunk/ProtoChunk;Lnet/minecraft/world/chunk/WorldChunk$EntityLoader;)V", at = @At("TAIL"))
+    private void aspectslib$copyAetherField(ServerWorld world, ProtoChunk protoChunk, @Nullable WorldChunk.EntityLoader entityLoader, CallbackInfo ci) {
+        ((IAetherFieldHolder) this).aspectslib$setAetherField(((IAetherFieldHolder) protoChunk).aspectslib$getAetherField());
+    }
+}
@@ -0,0 +1,137 @@
+package dev.overgrown.aspectslib.networking;
+
+import dev.overgrown.aspectslib.AspectsLib;
+import dev.overgrown.aspectslib.data.AspectData;
+import dev.overgrown.aspectslib.data.AspectOrdinals;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.UUID;
+
+/**
+ * Numeric aspect palette shared between the server and its clients.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ *     <li>Writes the server's aspect ordinal table as part of {@link SyncAspectIdentifierPacket}</li>
+ *     <li>Tracks how much of the table every connected player has received</li>
+ *     <li>Encodes/decodes aspect keys as VarInt ordinals, falling back to identifier strings</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Used by {@link AspectData#toPacket(PacketByteBuf, ServerPlayerEntity)} and {@link AspectData#fromPalettePacket}</li>
+ * </p>
+ * <br>
+ * Aspect ordinals are append-only (see {@link AspectOrdinals}), so a palette received by a client stays correct
+ * and only becomes incomplete when the server assigns new ordinals. The size of the palette therefore acts as its
+ * version: keys are written for a given palette size, as ordinals the receiving player has received and as
+ * identifier strings for anything newer. A player without a recorded palette only receives identifier strings.
+ * Keys are written as {@code ordinal + 1}, {@code 0} marks an identifier string.
+ */
+public class AspectPalette {
+
+    // Server side: palette size sent to each connected player
+    private static final Object2IntOpenHashMap<UUID> SENT_SIZES = new Object2IntOpenHashMap<>();
+
+    // Client side: server ordinal -> local ordinal
+    private static volatile int[] remap = new int[0];
+
+    /**
+     * Writes the current ordinal table to the buffer.
+     *
+     * @return The number of ordinals written.
+     */
+    public static int write(PacketByteBuf buf) {
+        int size = AspectOrdinals.size();
+        buf.writeVarInt(size);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            buf.writeString(AspectOrdinals.nameOf(ordinal));
+        }
+        return size;
+    }
+
+    /**
+     * Reads a palette written by {@link #write(PacketByteBuf)} and installs it as the client-side mapping.
+     */
+    public static void read(PacketByteBuf buf) {
+        int size = buf.readVarInt();
+        if (size > AspectOrdinals.MAX_ORDINALS) {
+            throw new IllegalArgumentException("Aspect palette too large: " + size);
+        }
+        int[] mapping = new int[size];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            // The server only assigns ordinals to its loaded aspects, which are synced along with the palette
+            mapping[ordinal] = AspectOrdinals.getOrCreate(buf.readIdentifier());
+        }
+        remap = mapping;
+        AspectsLib.LOGGER.debug("Received aspect palette with {} entries", size);
+    }
+
+    /**
+     * Records that a player received a palette of the given size.
+     */
+    public static synchronized void markSent(ServerPlayerEntity player, int size) {
+        SENT_SIZES.put(player.getUuid(), size);
+    }
+
+    /**
+     * Forgets a player that disconnected.
+     */
+    public static synchronized void onDisconnect(ServerPlayerEntity player) {
+        SENT_SIZES.removeInt(player.getUuid());
+    }
+
+    /**
+     * Clears all server and client state, e.g. when the server stops or the client leaves a server.
+     */
+    public static synchronized void reset() {
+        SENT_SIZES.clear();
+        remap = new int[0];
+    }
+
+    /**
+     * Gets the size of the palette a player has received.
+     *
+     * @return The palette size, or 0 if the player has not received one yet.
+     */
+    public static synchronized int getSentSize(ServerPlayerEntity player) {
+        return SENT_SIZES.getInt(player.getUuid());
+    }
+
+    /**
+     * Writes an aspect key for a receiver holding a palette of the given size, as an ordinal if the receiver knows
+     * it, otherwise as an identifier.
+     *
+     * @param paletteSize The receiver's palette size, see {@link #getSentSize}. 0 always writes identifiers.
+     */
+    public static void writeKey(PacketByteBuf buf, int ordinal, int paletteSize) {
+        if (ordinal < paletteSize) {
+            buf.writeVarInt(ordinal + 1);
+        } else {
+            buf.writeVarInt(0);
+            buf.writeString(AspectOrdinals.nameOf(ordinal));
+        }
+    }
+
+    /**
+     * Reads an aspect key written by {@link #writeKey(PacketByteBuf, int, int)}.
+     *
+     * @return The local ordinal, or -1 if the key refers to a palette entry this side never received or to an
+     * aspect that is not loaded.
+     */
+    public static int readKey(PacketByteBuf buf) {
+        int key = buf.readVarInt();
+        if (key == 0) {
+            return AspectOrdinals.get(buf.readIdentifier());
+        }
+
+        int[] mapping = remap;
+        if (key - 1 >= mapping.length) {
+            AspectsLib.LOGGER.warn("Received aspect ordinal {} outside of the synced palette ({} entries)", key - 1, mapping.length);
+            return -1;
+        }
+        return mapping[key - 1];
+    }
+}
@@ -0,0 +1,68 @@
+package dev.overgrown.aspectslib.networking;
+
+import dev.overgrown.aspectslib.AspectsLib;
+import dev.overgrown.aspectslib.entity.aura_node.AuraNodeEntity;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.util.Identifier;
+
+/**
+ * Synchronizes the aspects of an aura node to the players tracking it.
+ * <p>
+ * Responsibilities:
+ * <ol type="1">
+ *     <li>Encodes changed and removed aspects of a node, keyed through {@link AspectPalette}</li>
+ *     <li>Encodes a full snapshot for players that start tracking a node</li>
+ * </ol>
+ * </p>
+ * <p>
+ * Usage:
+ * <li>Written by {@link AuraNodeEntity} when its aspects changed since the last sync</li>
+ * <li>Read by AspectsLibClient, which applies the update to the client-side entity</li>
+ * </p>
+ * <br>
+ * Layout: entity id, full flag, changed entries as {@code key, original, current}, removed keys. A full snapshot
+ * replaces all aspects of the node, a delta only touches the listed ones.
+ */
+public class AuraNodeSyncPacket {
+    public static final Identifier ID = AspectsLib.identifier("aura_node_sync");
+
+    public static void writeHeader(PacketByteBuf buf, int entityId, boolean full, int changedCount) {
+        buf.writeVarInt(entityId);
+        buf.writeBoolean(full);
+        buf.writeVarInt(changedCount);
+    }
+
+    public static void writeEntry(PacketByteBuf buf, int paletteSize, int ordinal, int original, int current) {
+        AspectPalette.writeKey(buf, ordinal, paletteSize);
+        buf.writeVarInt(original);
+        buf.writeVarInt(current);
+    }
+
+    /**
+     * Reads an update on the network thread, so it can be applied on the client thread.
+     * Entries with a key unknown to this side are kept with ordinal -1 and skipped when applied.
+     */
+    public static Update read(PacketByteBuf buf) {
+        int entityId = buf.readVarInt();
+        boolean full = buf.readBoolean();
+
+        int changedCount = buf.readVarInt();
+        int[] ordinals = new int[changedCount];
+        int[] originals = new int[changedCount];
+        int[] currents = new int[changedCount];
+        for (int i = 0; i < changedCount; i++) {
+            ordinals[i] = AspectPalette.readKey(buf);
+            originals[i] = buf.readVarInt();
+            currents[i] = buf.readVarInt();
+        }
+
+        int removedCount = buf.readVarInt();
+        int[] removed = new int[removedCount];
+        for (int i = 0; i < removedCount; i++) {
+            removed[i] = AspectPalette.readKey(buf);
+        }
+        return new Update(entityId, full, ordinals, originals, currents, removed);
+    }
+
+    public record Update(int entityId, boolean full, int[] ordinals, int[] originals, int[] currents, int[] removed) {}
+}
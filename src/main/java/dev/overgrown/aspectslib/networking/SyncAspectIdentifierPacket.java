@@ -1,17 +1,24 @@
 package dev.overgrown.aspectslib.networking;
 
+import com.google.common.hash.Hashing;
 import dev.overgrown.aspectslib.AspectsLib;
 import dev.overgrown.aspectslib.data.Aspect;
 import dev.overgrown.aspectslib.data.AspectManager;
+import dev.overgrown.aspectslib.data.AspectOrdinals;
 import dev.overgrown.aspectslib.data.ModRegistries;
+import io.netty.buffer.Unpooled;
 import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
 
+import java.io.ByteArrayOutputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
  * This packet synchronizes both the aspect name mappings and the actual aspect data from server to client.
@@ -20,9 +27,20 @@ import java.util.Map;
  * <ol type="1">
  *     <li>Serialize/deserialize aspect data for network transmission</li>
  *     <li>Send aspect registry to clients/li>
+ *     <li>Send the aspect ordinal palette (see {@link AspectPalette})</li>
+ *     <li>Skip the full payload for clients that already cached the same content</li>
  * </ol>
  * </p>
  * <p>
+ * Sync flow:
+ * <ol type="1">
+ *     <li>The server sends only the content hash of its aspect payload ({@link #HASH_ID})</li>
+ *     <li>The client answers with the hash of the payload it holds in its cache file, or 0 ({@link #REQUEST_ID})</li>
+ *     <li>On a mismatch, the server sends the compressed payload ({@link #FULL_ID}), which the client caches</li>
+ * </ol>
+ * The payload is built and compressed once per aspect reload and shared between all players.
+ * </p>
+ * <p>
  * Usage:
  * <li>Called during player join (see AspectsLib.java)</li>
  * <li>Used internally by library</li>
@@ -37,6 +55,19 @@ import java.util.Map;
  */
 public class SyncAspectIdentifierPacket {
     public static final Identifier ID = AspectsLib.identifier("sync_aspect_packet");
+    public static final Identifier HASH_ID = AspectsLib.identifier("sync_aspect_hash");
+    public static final Identifier REQUEST_ID = AspectsLib.identifier("sync_aspect_request");
+    public static final Identifier FULL_ID = AspectsLib.identifier("sync_aspect_full");
+
+    /**
+     * Bumped whenever the payload layout changes, so cached payloads of older versions never match.
+     */
+    private static final int PAYLOAD_VERSION = 2;
+
+    /**
+     * Encoded aspect payload shared by all players, rebuilt after an aspect reload or when new ordinals appear.
+     */
+    private static Payload payload = null;
 
     /**
      * Writes the name-to-ID mapping to the buffer
@@ -68,6 +99,16 @@ public class SyncAspectIdentifierPacket {
         writeAspectData(buf, aspectMap);
     }
 
+    /**
+     * Writes the name mapping, aspect data and the aspect ordinal palette to the buffer
+     *
+     * @return The number of palette entries written.
+     */
+    public static int writeFullDataWithPalette(PacketByteBuf buf, Map<String, Identifier> nameMap, Map<Identifier, Aspect> aspectMap) {
+        writeFullData(buf, nameMap, aspectMap);
+        return AspectPalette.write(buf);
+    }
+
     /**
      * Reads the name-to-ID mapping from the buffer
      */
@@ -101,16 +142,155 @@ public class SyncAspectIdentifierPacket {
      */
     public static void sendFullData(ServerPlayerEntity player, Map<String, Identifier> nameMap, Map<Identifier, Aspect> aspectMap) {
         PacketByteBuf buf = PacketByteBufs.create();
-        writeFullData(buf, nameMap, aspectMap);
+        int paletteSize = writeFullDataWithPalette(buf, nameMap, aspectMap);
         ServerPlayNetworking.send(player, ID, buf);
+        AspectPalette.markSent(player, paletteSize);
     }
 
     /**
-     * Sends all current aspect data from server to client (Send current registry data to player)
+     * Starts syncing the current aspect data to a client by sending the content hash of the aspect payload. The
+     * payload itself is only sent if the client answers with a different hash.
      */
     public static void sendAllData(ServerPlayerEntity player) {
-        AspectsLib.LOGGER.debug("Sending {} aspects and {} name mappings to client", 
-                ModRegistries.ASPECTS.size(), AspectManager.NAME_TO_ID.size());
-        sendFullData(player, AspectManager.NAME_TO_ID, ModRegistries.ASPECTS);
+        Payload current = getPayload();
+        AspectsLib.LOGGER.debug("Sending aspect payload hash {} ({} aspects) to client",
+                Long.toHexString(current.hash()), ModRegistries.ASPECTS.size());
+
+        // Until the client confirms a palette, only identifier strings may be sent to it
+        AspectPalette.markSent(player, 0);
+
+        PacketByteBuf buf = PacketByteBufs.create();
+        buf.writeLong(current.hash());
+        ServerPlayNetworking.send(player, HASH_ID, buf);
+    }
+
+    /**
+     * Handles the client's answer to the hash packet, sending the full payload if its cached copy is outdated.
+     *
+     * @param player     The player that answered.
+     * @param cachedHash The hash of the payload the client holds, or 0 if it has none.
+     */
+    public static void onPayloadRequest(ServerPlayerEntity player, long cachedHash) {
+        Payload current = getPayload();
+        if (cachedHash != current.hash()) {
+            PacketByteBuf buf = PacketByteBufs.create();
+            buf.writeLong(current.hash());
+            buf.writeVarInt(current.length());
+            buf.writeByteArray(current.compressed());
+            ServerPlayNetworking.send(player, FULL_ID, buf);
+            AspectsLib.LOGGER.debug("Sent {} byte aspect payload to {}", current.compressed().length, player.getName().getString());
+        }
+        AspectPalette.markSent(player, current.paletteSize());
     }
+
+    /**
+     * Drops the encoded payload, so it is rebuilt from the freshly loaded aspects.
+     */
+    public static synchronized void invalidatePayload() {
+        payload = null;
+    }
+
+    /**
+     * Gets the encoded payload for the current aspects, building it if needed.
+     */
+    public static synchronized Payload getPayload() {
+        if (payload == null || payload.paletteSize() != AspectOrdinals.size()) {
+            payload = buildPayload();
+        }
+        return payload;
+    }
+
+    private static Payload buildPayload() {
+        // Names are not sent separately, the client derives the name mapping from the aspects
+        PacketByteBuf buf = PacketByteBufs.create();
+        buf.writeVarInt(PAYLOAD_VERSION);
+        buf.writeVarInt(ModRegistries.ASPECTS.size());
+        for (Map.Entry<Identifier, Aspect> entry : ModRegistries.ASPECTS.entrySet()) {
+            buf.writeIdentifier(entry.getKey());
+            Aspect.PACKET_CODEC.encode(buf, entry.getValue());
+        }
+        int paletteSize = AspectPalette.write(buf);
+
+        byte[] raw = new byte[buf.readableBytes()];
+        buf.readBytes(raw);
+        long hash = Hashing.murmur3_128().hashBytes(raw).asLong();
+        return new Payload(hash, raw.length, compress(raw), paletteSize);
+    }
+
+    /**
+     * Reads an uncompressed payload, installing its palette.
+     *
+     * @return The aspects contained in the payload.
+     * @throws IllegalArgumentException If the payload was written by a different payload version.
+     */
+    public static Map<Identifier, Aspect> readPayload(byte[] raw) {
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.wrappedBuffer(raw));
+        int version = buf.readVarInt();
+        if (version != PAYLOAD_VERSION) {
+            throw new IllegalArgumentException("Unsupported aspect payload version " + version);
+        }
+        int size = buf.readVarInt();
+        Map<Identifier, Aspect> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Identifier id = buf.readIdentifier();
+            map.put(id, Aspect.PACKET_CODEC.decode(buf));
+        }
+        AspectPalette.read(buf);
+        return map;
+    }
+
+    /**
+     * Checks that a payload matches the hash it was announced with.
+     */
+    public static boolean matchesHash(byte[] raw, long hash) {
+        return Hashing.murmur3_128().hashBytes(raw).asLong() == hash;
+    }
+
+    public static byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static byte[] decompress(byte[] compressed, int length) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new DataFormatException("Expected " + length + " bytes of aspect payload, got " + read);
+            }
+            return raw;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Encoded aspect payload.
+     *
+     * @param hash        Content hash of the uncompressed payload.
+     * @param length      Length of the uncompressed payload.
+     * @param compressed  The deflated payload.
+     * @param paletteSize Number of palette entries contained in the payload.
+     */
+    public record Payload(long hash, int length, byte[] compressed, int paletteSize) {}
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package dev.overgrown.aspectslib.registry;
+
+import dev.overgrown.aspectslib.AspectsLib;
+import dev.overgrown.aspectslib.entity.aura_node.world.AuraNodeFeature;
+import net.fabricmc.fabric.api.biome.v1.BiomeModifications;
+import net.fabricmc.fabric.api.biome.v1.BiomeSelectors;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.Registry;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.world.gen.GenerationStep;
+import net.minecraft.world.gen.feature.DefaultFeatureConfig;
+import net.minecraft.world.gen.feature.PlacedFeature;
+
+public class ModFeatures {
+    public static final AuraNodeFeature AURA_NODE = new AuraNodeFeature(DefaultFeatureConfig.CODEC);
+
+    public static final RegistryKey<PlacedFeature> AURA_NODE_PLACED = RegistryKey.of(RegistryKeys.PLACED_FEATURE, AspectsLib.identifier("aura_node"));
+
+    public static void register() {
+        Registry.register(Registries.FEATURE, AspectsLib.identifier("aura_node"), AURA_NODE);
+
+        // Aura nodes generate in biomes tagged aspectslib:spawns
+        BiomeModifications.addFeature(BiomeSelectors.tag(AspectsLib.SPAWNS),
+                GenerationStep.Feature.TOP_LAYER_MODIFICATION, AURA_NODE_PLACED);
+    }
+}
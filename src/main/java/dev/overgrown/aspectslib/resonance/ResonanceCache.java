@@ -0,0 +1,69 @@
+package dev.overgrown.aspectslib.resonance;
+
+import dev.overgrown.aspectslib.data.AspectData;
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of resonance results per aspect composition.
+ * <p>
+ * Usage:
+ * <li>Used by {@link AspectData#calculateResonance()}</li>
+ * <li>Invalidated by {@link ResonanceManager} on every reload</li>
+ * </p>
+ * The cache is direct-mapped: every composition has exactly one slot, chosen by the content hash
+ * {@link AspectData} computes once on construction, and a newer composition simply replaces the entry in its slot.
+ * Lookups never lock; entries are immutable and published with a single reference write, so concurrent readers
+ * see either the old or the new entry. Invalidation swaps in an empty table.
+ */
+public class ResonanceCache {
+    private static final int SIZE = 4096;
+
+    private static volatile Entry[] table = new Entry[SIZE];
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    /**
+     * Gets the resonance of a composition, calculating it on a miss.
+     */
+    public static ResonanceCalculator.ResonanceResult get(AspectData data) {
+        Entry[] entries = table;
+        int index = HashCommon.mix(data.hashCode()) & (SIZE - 1);
+
+        Entry entry = entries[index];
+        if (entry != null && (entry.data == data || entry.data.equals(data))) {
+            HITS.increment();
+            return entry.result;
+        }
+
+        MISSES.increment();
+        ResonanceCalculator.ResonanceResult result = ResonanceCalculator.calculate(data);
+        // Stored in the table the lookup started with, so a result computed before an invalidation never survives it
+        entries[index] = new Entry(data, result);
+        return result;
+    }
+
+    /**
+     * Drops all cached results, e.g. after the resonances were reloaded.
+     */
+    public static void invalidateAll() {
+        table = new Entry[SIZE];
+    }
+
+    public static long getHits() {
+        return HITS.sum();
+    }
+
+    public static long getMisses() {
+        return MISSES.sum();
+    }
+
+    public static void resetStats() {
+        HITS.reset();
+        MISSES.reset();
+    }
+
+    private record Entry(AspectData data, ResonanceCalculator.ResonanceResult result) {}
+}
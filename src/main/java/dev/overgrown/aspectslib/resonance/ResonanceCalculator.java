@@ -1,56 +1,156 @@
 package dev.overgrown.aspectslib.resonance;
 
 import dev.overgrown.aspectslib.data.AspectData;
-import net.minecraft.util.Identifier;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class ResonanceCalculator {
+
+    /**
+     * Batches of at least this many entries are split across the common fork/join pool.
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    private static final int TOTAL_RU = 0;
+    private static final int AMPLIFICATION_FACTOR = 1;
+    private static final int BARRIER_COST = 2;
+
     public static ResonanceResult calculate(AspectData data) {
+        double[] result = new double[3];
+        calculate(data, ResonanceManager.getMatrix(), result);
+        return new ResonanceResult(result[TOTAL_RU], result[AMPLIFICATION_FACTOR], result[BARRIER_COST]);
+    }
+
+    /**
+     * Calculates the resonance of many compositions at once.
+     *
+     * @return The results, in the order of the input.
+     */
+    public static List<ResonanceResult> calculateAll(List<AspectData> data) {
+        int size = data.size();
+        double[] totalRU = new double[size];
+        double[] amplificationFactor = new double[size];
+        double[] barrierCost = new double[size];
+        calculateAll(data, totalRU, amplificationFactor, barrierCost);
+
+        List<ResonanceResult> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            results.add(new ResonanceResult(totalRU[i], amplificationFactor[i], barrierCost[i]));
+        }
+        return results;
+    }
+
+    /**
+     * Calculates the resonance of many compositions at once, writing the result of the i-th composition to index i
+     * of each array. Nothing is allocated for small batches; large batches run in parallel. All compositions are
+     * evaluated against the same resonances, even if they are reloaded meanwhile.
+     *
+     * @throws IllegalArgumentException If an array is shorter than the list.
+     */
+    public static void calculateAll(List<AspectData> data, double[] totalRU, double[] amplificationFactor, double[] barrierCost) {
+        int size = data.size();
+        if (totalRU.length < size || amplificationFactor.length < size || barrierCost.length < size) {
+            throw new IllegalArgumentException("Result arrays must hold at least " + size + " entries");
+        }
+
+        ResonanceMatrix matrix = ResonanceManager.getMatrix();
+        if (size >= PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new BatchTask(data, matrix, totalRU, amplificationFactor, barrierCost, 0, size));
+        } else {
+            calculateRange(data, matrix, totalRU, amplificationFactor, barrierCost, 0, size);
+        }
+    }
+
+    private static void calculateRange(List<AspectData> data, ResonanceMatrix matrix,
+                                       double[] totalRU, double[] amplificationFactor, double[] barrierCost,
+                                       int from, int to) {
+        double[] result = new double[3];
+        for (int i = from; i < to; i++) {
+            calculate(data.get(i), matrix, result);
+            totalRU[i] = result[TOTAL_RU];
+            amplificationFactor[i] = result[AMPLIFICATION_FACTOR];
+            barrierCost[i] = result[BARRIER_COST];
+        }
+    }
+
+    private static void calculate(AspectData data, ResonanceMatrix matrix, double[] result) {
         double totalRU = 0;
         double amplificationFactor = 1.0;
         double barrierCost = 0;
 
-        Map<Identifier, Integer> aspects = data.getMap();
-
-        for (Map.Entry<Identifier, Integer> entry : aspects.entrySet()) {
-            Identifier aspectId = entry.getKey();
-            int amount = entry.getValue();
-
-            // Get all resonance relationships for this aspect
-            List<Resonance> resonances = ResonanceManager.RESONANCE_MAP.getOrDefault(
-                    aspectId, Collections.emptyList()
-            );
-
-            for (Resonance resonance : resonances) {
-                if (resonance == null) continue;
-
-                // Find the other aspect in the pair
-                Identifier otherId = resonance.aspect1().equals(aspectId) ?
-                        resonance.aspect2() : resonance.aspect1();
-
-                if (aspects.containsKey(otherId)) {
-                    int otherAmount = aspects.get(otherId);
-
-                    if (resonance.type() == Resonance.Type.AMPLIFYING) {
-                        // Amplification: average of both amounts * factor
-                        double boost = ((amount + otherAmount) / 2.0) * resonance.factor();
-                        amplificationFactor += boost;
-                        totalRU += boost;
-                    } else { // OPPOSING
-                        // Barrier cost: min amount * factor
-                        double barrier = Math.min(amount, otherAmount) * resonance.factor();
-                        barrierCost += barrier;
-                        totalRU -= barrier;
-                    }
+        int size = data.getSize();
+
+        // Every pair is visited once; a pair of two different aspects counts from both sides, so it weighs double
+        for (int i = 0; i < size; i++) {
+            int row = matrix.rowOf(data.getOrdinal(i));
+            if (row < 0) continue;
+            int amount = data.getAmount(i);
+
+            for (int j = i; j < size; j++) {
+                int otherRow = matrix.rowOf(data.getOrdinal(j));
+                if (otherRow < 0) continue;
+                int otherAmount = data.getAmount(j);
+                int weight = i == j ? 1 : 2;
+
+                double amplifying = matrix.getAmplifying(row, otherRow);
+                if (amplifying != 0) {
+                    // Amplification: average of both amounts * factor
+                    double boost = ((amount + otherAmount) / 2.0) * amplifying * weight;
+                    amplificationFactor += boost;
+                    totalRU += boost;
+                }
+
+                double opposing = matrix.getOpposing(row, otherRow);
+                if (opposing != 0) {
+                    // Barrier cost: min amount * factor
+                    double barrier = Math.min(amount, otherAmount) * opposing * weight;
+                    barrierCost += barrier;
+                    totalRU -= barrier;
                 }
             }
         }
 
-        return new ResonanceResult(totalRU, amplificationFactor, barrierCost);
+        result[TOTAL_RU] = totalRU;
+        result[AMPLIFICATION_FACTOR] = amplificationFactor;
+        result[BARRIER_COST] = barrierCost;
+    }
+
+    // Splits a batch in halves until the parts are small enough to evaluate sequentially
+    private static class BatchTask extends RecursiveAction {
+        private final List<AspectData> data;
+        private final ResonanceMatrix matrix;
+        private final double[] totalRU;
+        private final double[] amplificationFactor;
+        private final double[] barrierCost;
+        private final int from;
+        private final int to;
+
+        private BatchTask(List<AspectData> data, ResonanceMatrix matrix,
+                          double[] totalRU, double[] amplificationFactor, double[] barrierCost, int from, int to) {
+            this.data = data;
+            this.matrix = matrix;
+            this.totalRU = totalRU;
+            this.amplificationFactor = amplificationFactor;
+            this.barrierCost = barrierCost;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD / 2) {
+                calculateRange(data, matrix, totalRU, amplificationFactor, barrierCost, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                    new BatchTask(data, matrix, totalRU, amplificationFactor, barrierCost, from, middle),
+                    new BatchTask(data, matrix, totalRU, amplificationFactor, barrierCost, middle, to));
+        }
     }
 
     public record ResonanceResult(double totalRU, double amplificationFactor, double barrierCost) {}
-}
\ No newline at end of file
+}
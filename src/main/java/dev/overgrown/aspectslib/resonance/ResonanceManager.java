@@ -16,6 +16,7 @@ import java.util.*;
 
 public class ResonanceManager extends JsonDataLoader implements IdentifiableResourceReloadListener {
     public static final Map<Identifier, List<Resonance>> RESONANCE_MAP = new HashMap<>();
+    private static volatile ResonanceMatrix matrix = ResonanceMatrix.EMPTY;
     private static final Gson GSON = new Gson();
     private static final Codec<Resonance> CODEC = RecordCodecBuilder.create(instance ->
             instance.group(
@@ -33,9 +34,17 @@ public class ResonanceManager extends JsonDataLoader implements IdentifiableReso
         super(GSON, "resonance");
     }
 
+    /**
+     * Gets the resonances compiled on the last reload.
+     */
+    public static ResonanceMatrix getMatrix() {
+        return matrix;
+    }
+
     @Override
     protected void apply(Map<Identifier, JsonElement> prepared, ResourceManager manager, Profiler profiler) {
         RESONANCE_MAP.clear();
+        List<Resonance> resonances = new ArrayList<>();
 
         AspectsLib.LOGGER.info("Found {} resonance files", prepared.size());
 
@@ -48,11 +57,15 @@ public class ResonanceManager extends JsonDataLoader implements IdentifiableReso
                         AspectsLib.LOGGER.info("Loaded resonance: {} <-> {} ({})",
                                 resonance.aspect1(), resonance.aspect2(), resonance.type());
 
+                        resonances.add(resonance);
                         RESONANCE_MAP.computeIfAbsent(resonance.aspect1(), k -> new ArrayList<>()).add(resonance);
                         RESONANCE_MAP.computeIfAbsent(resonance.aspect2(), k -> new ArrayList<>()).add(resonance);
                     });
         });
 
+        matrix = ResonanceMatrix.compile(resonances);
+        ResonanceCache.invalidateAll();
+
         AspectsLib.LOGGER.info("Loaded resonance relationships for {} aspects", RESONANCE_MAP.size());
     }
 
@@ -0,0 +1,105 @@
+package dev.overgrown.aspectslib.resonance;
+
+import dev.overgrown.aspectslib.AspectsLib;
+import dev.overgrown.aspectslib.data.AspectOrdinals;
+import dev.overgrown.aspectslib.data.ModRegistries;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Resonance factors between aspects, compiled into dense matrices over the aspects that take part in a resonance.
+ * <p>
+ * Usage:
+ * <li>Built by {@link ResonanceManager} on every reload</li>
+ * <li>Read by {@link ResonanceCalculator}</li>
+ * </p>
+ * Aspect ordinals are mapped to compact rows first, so the matrices only grow with the number of aspects named by
+ * resonances, not with the highest ordinal. Resonances naming an aspect that is not loaded are skipped. Both
+ * matrices are symmetric. Factors of several resonances between the same pair add up, and a resonance of an aspect
+ * with itself counts twice, matching how the resonance lists were evaluated before. Ordinals assigned after the
+ * matrix was built have no resonances and have no row.
+ */
+public class ResonanceMatrix {
+    public static final ResonanceMatrix EMPTY = new ResonanceMatrix(new int[0], 0, new double[0], new double[0]);
+
+    private final int[] rows;
+    private final int size;
+    private final double[] amplifying;
+    private final double[] opposing;
+
+    private ResonanceMatrix(int[] rows, int size, double[] amplifying, double[] opposing) {
+        this.rows = rows;
+        this.size = size;
+        this.amplifying = amplifying;
+        this.opposing = opposing;
+    }
+
+    public static ResonanceMatrix compile(Collection<Resonance> resonances) {
+        List<Resonance> valid = new ArrayList<>(resonances.size());
+        int maxOrdinal = -1;
+        for (Resonance resonance : resonances) {
+            int a = getLoadedOrdinal(resonance.aspect1());
+            int b = getLoadedOrdinal(resonance.aspect2());
+            if (a < 0 || b < 0) {
+                AspectsLib.LOGGER.warn("Skipping resonance {} <-> {}, as it names an aspect that is not loaded",
+                        resonance.aspect1(), resonance.aspect2());
+                continue;
+            }
+            valid.add(resonance);
+            maxOrdinal = Math.max(maxOrdinal, Math.max(a, b));
+        }
+
+        int[] rows = new int[maxOrdinal + 1];
+        Arrays.fill(rows, -1);
+        int size = 0;
+        for (Resonance resonance : valid) {
+            int a = AspectOrdinals.get(resonance.aspect1());
+            int b = AspectOrdinals.get(resonance.aspect2());
+            if (rows[a] < 0) rows[a] = size++;
+            if (rows[b] < 0) rows[b] = size++;
+        }
+
+        double[] amplifying = new double[size * size];
+        double[] opposing = new double[size * size];
+        for (Resonance resonance : valid) {
+            int a = rows[AspectOrdinals.get(resonance.aspect1())];
+            int b = rows[AspectOrdinals.get(resonance.aspect2())];
+            double[] matrix = resonance.type() == Resonance.Type.AMPLIFYING ? amplifying : opposing;
+            matrix[a * size + b] += resonance.factor();
+            matrix[b * size + a] += resonance.factor();
+        }
+        return new ResonanceMatrix(rows, size, amplifying, opposing);
+    }
+
+    private static int getLoadedOrdinal(Identifier aspect) {
+        return ModRegistries.ASPECTS.containsKey(aspect) ? AspectOrdinals.get(aspect) : -1;
+    }
+
+    /**
+     * Gets the number of rows of the matrix, i.e. the number of aspects taking part in a resonance.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the row of an aspect ordinal.
+     *
+     * @return The row, or -1 if the aspect takes part in no resonance.
+     */
+    public int rowOf(int ordinal) {
+        return ordinal < rows.length ? rows[ordinal] : -1;
+    }
+
+    public double getAmplifying(int row1, int row2) {
+        return amplifying[row1 * size + row2];
+    }
+
+    public double getOpposing(int row1, int row2) {
+        return opposing[row1 * size + row2];
+    }
+}